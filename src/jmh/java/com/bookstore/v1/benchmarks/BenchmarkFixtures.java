@@ -0,0 +1,47 @@
+package com.bookstore.v1.benchmarks;
+
+import com.bookstore.v1.data.Book;
+import com.bookstore.v1.data.Review;
+import com.bookstore.v1.data.User;
+import com.bookstore.v1.data.Wishlist;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// entities shaped like the ones the services load from mongo
+final class BenchmarkFixtures {
+    private BenchmarkFixtures() {}
+
+    static User user() {
+        return new User("60f1b2c3d4e5f6a7b8c9d0e1", "userName", "user@bookstore.com", "+40712345678");
+    }
+
+    static Book book(int index) {
+        return new Book(String.format("60f1b2c3d4e5f6a7b8c9%04x", index), "Title " + index, "Author " + index,
+                "Publisher", "978-3-16-148410-" + (index % 10), LocalDate.of(2020, 1, 1).plusDays(index));
+    }
+
+    static List<Book> books(int count) {
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            books.add(book(i));
+        }
+        return books;
+    }
+
+    static Review review(User user, Book book) {
+        Review review = new Review("60f1b2c3d4e5f6a7b8c9ffff", "Review title",
+                "A review description long enough to look like the ones users actually write.", 4.5);
+        review.setUser(user);
+        review.setBook(book);
+        return review;
+    }
+
+    static Wishlist wishlist(User user, List<Book> books) {
+        Wishlist wishlist = new Wishlist("60f1b2c3d4e5f6a7b8c9eeee", "Wishlist title");
+        wishlist.setUser(user);
+        wishlist.setBooks(books);
+        return wishlist;
+    }
+}
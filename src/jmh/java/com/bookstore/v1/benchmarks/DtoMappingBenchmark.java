@@ -0,0 +1,61 @@
+package com.bookstore.v1.benchmarks;
+
+import com.bookstore.v1.data.Book;
+import com.bookstore.v1.data.Review;
+import com.bookstore.v1.data.User;
+import com.bookstore.v1.data.Wishlist;
+import com.bookstore.v1.dto.BookDTO;
+import com.bookstore.v1.dto.ReviewDTO;
+import com.bookstore.v1.dto.WishlistDTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DtoMappingBenchmark {
+    @Param({"1", "20"})
+    private int wishlistSize;
+
+    private User user;
+    private Book book;
+    private Review review;
+    private Wishlist wishlist;
+    private List<Book> wishlistBooks;
+
+    @Setup
+    public void setUp() {
+        user = BenchmarkFixtures.user();
+        book = BenchmarkFixtures.book(0);
+        review = BenchmarkFixtures.review(user, book);
+        wishlistBooks = BenchmarkFixtures.books(wishlistSize);
+        wishlist = BenchmarkFixtures.wishlist(user, wishlistBooks);
+    }
+
+    @Benchmark
+    public BookDTO bookDTO() {
+        return new BookDTO(book);
+    }
+
+    @Benchmark
+    public ReviewDTO reviewDTOWithRelations() {
+        return new ReviewDTO(review, true, true);
+    }
+
+    @Benchmark
+    public ReviewDTO reviewDTOWithResolvedRelations() {
+        return new ReviewDTO(review, user, book);
+    }
+
+    @Benchmark
+    public WishlistDTO wishlistDTO() {
+        return new WishlistDTO(wishlist, true);
+    }
+
+    @Benchmark
+    public WishlistDTO wishlistDTOWithResolvedBooks() {
+        return new WishlistDTO(wishlist, true, wishlistBooks);
+    }
+}
@@ -0,0 +1,83 @@
+package com.bookstore.v1.benchmarks;
+
+import com.bookstore.v1.config.AppConfig;
+import com.bookstore.v1.data.User;
+import com.bookstore.v1.dto.BookDTO;
+import com.bookstore.v1.dto.ReviewDTO;
+import com.bookstore.v1.dto.WishlistDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JsonSerializationBenchmark {
+    private ObjectWriter bookWriter;
+    private ObjectReader bookReader;
+    private ObjectWriter reviewWriter;
+    private ObjectReader reviewReader;
+    private ObjectWriter wishlistWriter;
+    private ObjectReader wishlistReader;
+
+    private BookDTO book;
+    private ReviewDTO review;
+    private WishlistDTO wishlist;
+    private byte[] bookJson;
+    private byte[] reviewJson;
+    private byte[] wishlistJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        // the same mapper configuration the application serves requests with
+        ObjectMapper objectMapper = new AppConfig().getObjectMapper();
+        bookWriter = objectMapper.writerFor(BookDTO.class);
+        bookReader = objectMapper.readerFor(BookDTO.class);
+        reviewWriter = objectMapper.writerFor(ReviewDTO.class);
+        reviewReader = objectMapper.readerFor(ReviewDTO.class);
+        wishlistWriter = objectMapper.writerFor(WishlistDTO.class);
+        wishlistReader = objectMapper.readerFor(WishlistDTO.class);
+
+        User user = BenchmarkFixtures.user();
+        book = new BookDTO(BenchmarkFixtures.book(0));
+        review = new ReviewDTO(BenchmarkFixtures.review(user, BenchmarkFixtures.book(0)), true, true);
+        wishlist = new WishlistDTO(BenchmarkFixtures.wishlist(user, BenchmarkFixtures.books(20)), true);
+        bookJson = bookWriter.writeValueAsBytes(book);
+        reviewJson = reviewWriter.writeValueAsBytes(review);
+        wishlistJson = wishlistWriter.writeValueAsBytes(wishlist);
+    }
+
+    @Benchmark
+    public byte[] writeBook() throws JsonProcessingException {
+        return bookWriter.writeValueAsBytes(book);
+    }
+
+    @Benchmark
+    public BookDTO readBook() throws Exception {
+        return bookReader.readValue(bookJson);
+    }
+
+    @Benchmark
+    public byte[] writeReview() throws JsonProcessingException {
+        return reviewWriter.writeValueAsBytes(review);
+    }
+
+    @Benchmark
+    public ReviewDTO readReview() throws Exception {
+        return reviewReader.readValue(reviewJson);
+    }
+
+    @Benchmark
+    public byte[] writeWishlist() throws JsonProcessingException {
+        return wishlistWriter.writeValueAsBytes(wishlist);
+    }
+
+    @Benchmark
+    public WishlistDTO readWishlist() throws Exception {
+        return wishlistReader.readValue(wishlistJson);
+    }
+}
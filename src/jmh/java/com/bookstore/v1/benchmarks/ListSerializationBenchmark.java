@@ -0,0 +1,82 @@
+package com.bookstore.v1.benchmarks;
+
+import com.bookstore.v1.config.AppConfig;
+import com.bookstore.v1.data.Book;
+import com.bookstore.v1.data.User;
+import com.bookstore.v1.dto.BookDTO;
+import com.bookstore.v1.dto.FieldSelection;
+import com.bookstore.v1.dto.ReviewDTO;
+import com.bookstore.v1.dto.WishlistDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// the bodies of get-books, get-reviews and get-wishlists, written from the runtime type of the list the way the
+// json converter does. "plain" is the mapper without blackbird, "tuned" is the shared mapper
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ListSerializationBenchmark {
+    @Param({"100", "1000"})
+    private int size;
+
+    private ObjectMapper plainMapper;
+    private ObjectMapper tunedMapper;
+
+    private List<BookDTO> books;
+    private List<ReviewDTO> reviews;
+    private List<WishlistDTO> wishlists;
+
+    @Setup
+    public void setUp() {
+        plainMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        FieldSelection.registerFilters(plainMapper);
+        tunedMapper = new AppConfig().getObjectMapper();
+
+        User user = BenchmarkFixtures.user();
+        List<Book> wishlistBooks = BenchmarkFixtures.books(20);
+        books = new ArrayList<>(size);
+        reviews = new ArrayList<>(size);
+        wishlists = new ArrayList<>(size);
+        for (Book book : BenchmarkFixtures.books(size)) {
+            books.add(new BookDTO(book));
+            reviews.add(new ReviewDTO(BenchmarkFixtures.review(user, book), true, true));
+            wishlists.add(new WishlistDTO(BenchmarkFixtures.wishlist(user, wishlistBooks), true));
+        }
+    }
+
+    @Benchmark
+    public byte[] writeBooksPlain() throws JsonProcessingException {
+        return plainMapper.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] writeBooksTuned() throws JsonProcessingException {
+        return tunedMapper.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] writeReviewsPlain() throws JsonProcessingException {
+        return plainMapper.writeValueAsBytes(reviews);
+    }
+
+    @Benchmark
+    public byte[] writeReviewsTuned() throws JsonProcessingException {
+        return tunedMapper.writeValueAsBytes(reviews);
+    }
+
+    @Benchmark
+    public byte[] writeWishlistsPlain() throws JsonProcessingException {
+        return plainMapper.writeValueAsBytes(wishlists);
+    }
+
+    @Benchmark
+    public byte[] writeWishlistsTuned() throws JsonProcessingException {
+        return tunedMapper.writeValueAsBytes(wishlists);
+    }
+}
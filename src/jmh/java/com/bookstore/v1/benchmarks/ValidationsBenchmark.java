@@ -0,0 +1,70 @@
+package com.bookstore.v1.benchmarks;
+
+import com.bookstore.v1.dto.BookDTO;
+import com.bookstore.v1.dto.ReviewCreationDTO;
+import com.bookstore.v1.dto.UserDTO;
+import com.bookstore.v1.dto.WishlistCreationDTO;
+import com.bookstore.v1.exception.EmptyFieldException;
+import com.bookstore.v1.exception.InvalidDoubleRange;
+import com.bookstore.v1.validations.BookValidations;
+import com.bookstore.v1.validations.ReviewValidations;
+import com.bookstore.v1.validations.UserValidations;
+import com.bookstore.v1.validations.WishlistValidations;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ValidationsBenchmark {
+    private BookDTO validBook;
+    private UserDTO validUser;
+    private ReviewCreationDTO validReview;
+    private ReviewCreationDTO outOfRangeReview;
+    private WishlistCreationDTO validWishlist;
+
+    @Setup
+    public void setUp() {
+        validBook = new BookDTO(BenchmarkFixtures.book(0));
+        validUser = new UserDTO(BenchmarkFixtures.user());
+        validReview = new ReviewCreationDTO("title", "description", 4.5, "userId", "bookId");
+        outOfRangeReview = new ReviewCreationDTO("title", "description", 7.0, "userId", "bookId");
+        validWishlist = new WishlistCreationDTO("title", "userId");
+    }
+
+    @Benchmark
+    public BookDTO validateBook() {
+        BookValidations.validateBookDTO(validBook, false);
+        return validBook;
+    }
+
+    @Benchmark
+    public UserDTO validateUser() {
+        UserValidations.validateUserDTO(validUser, false);
+        return validUser;
+    }
+
+    @Benchmark
+    public ReviewCreationDTO validateReview() {
+        ReviewValidations.validateReviewCreationDTO(validReview, false);
+        return validReview;
+    }
+
+    // rejected requests pay for building the exception
+    @Benchmark
+    public Object rejectReview() {
+        try {
+            ReviewValidations.validateReviewCreationDTO(outOfRangeReview, false);
+            return outOfRangeReview;
+        } catch (EmptyFieldException | InvalidDoubleRange e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public WishlistCreationDTO validateWishlist() {
+        WishlistValidations.validateWishlistCreationDTO(validWishlist, false);
+        return validWishlist;
+    }
+}
@@ -2,10 +2,18 @@ package com.bookstore.v1;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.MongoReactiveAutoConfiguration;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
 
-@SpringBootApplication
-@EnableMongoRepositories
+// the reactive mongo setup lives in ReactiveMongoConfig and only exists in the reactive mode
+@SpringBootApplication(exclude = {MongoReactiveAutoConfiguration.class, MongoReactiveDataAutoConfiguration.class,
+        MongoReactiveRepositoriesAutoConfiguration.class})
+@EnableMongoRepositories(excludeFilters = @ComponentScan.Filter(type = FilterType.REGEX,
+        pattern = "com\\.bookstore\\.v1\\.data\\.reactive\\..*"))
 public class V1Application {
     public static void main(String[] args) {
         SpringApplication.run(V1Application.class, args);
@@ -1,7 +1,9 @@
 package com.bookstore.v1.config;
 
+import com.bookstore.v1.dto.FieldSelection;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
@@ -15,8 +17,15 @@ public class AppConfig {
 
     @Bean
     public ObjectMapper getObjectMapper() {
-        ObjectMapper objectMapper = new ObjectMapper();
+        return configure(new ObjectMapper());
+    }
+
+    // shared with the smile and cbor mappers, so every format writes the same fields
+    static ObjectMapper configure(ObjectMapper objectMapper) {
         objectMapper.registerModule(new JavaTimeModule());
+        // generated accessors instead of reflection for the dto getters and setters
+        objectMapper.registerModule(new BlackbirdModule());
+        FieldSelection.registerFilters(objectMapper);
         return objectMapper;
     }
 }
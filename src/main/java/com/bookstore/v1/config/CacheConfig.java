@@ -0,0 +1,13 @@
+package com.bookstore.v1.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+// the caffeine cache manager, its caches and their metrics are set up by spring boot from the spring.cache.*
+// properties, repositories declare what they cache and evict
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String BOOKS_CACHE = "books";
+    public static final String USERS_CACHE = "users";
+}
@@ -0,0 +1,18 @@
+package com.bookstore.v1.config;
+
+import com.bookstore.v1.exception.BookstoreException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PostConstruct;
+
+@Configuration
+public class ExceptionConfig {
+    @Value("${bookstore.exceptions.capture-stack-traces:true}")
+    private boolean captureStackTraces;
+
+    @PostConstruct
+    public void configureStackTraceCapture() {
+        BookstoreException.setCaptureStackTraces(captureStackTraces);
+    }
+}
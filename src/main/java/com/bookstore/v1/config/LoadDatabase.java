@@ -1,50 +1,125 @@
 package com.bookstore.v1.config;
 
 import com.bookstore.v1.data.*;
+import com.mongodb.client.result.UpdateResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.TextIndexDefinition;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 
-import java.time.LocalDate;
-import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Configuration
 public class LoadDatabase {
+    private static final Logger logger = LoggerFactory.getLogger(LoadDatabase.class);
+
     @Autowired
-    private BookRepository bookRepository;
-    @Autowired
-    private UserRepository userRepository;
-    @Autowired
-    private ReviewRepository reviewRepository;
-    @Autowired
-    private WishlistRepository wishlistRepository;
+    private MongoTemplate mongoTemplate;
 
     @Bean
     CommandLineRunner initDb() {
-        // create a document for each model and save it to the database
-        // otherwise mongo won't create the collections until they are being first referenced
-        Book book = new Book("title", "author", "publisher", "isbn", LocalDate.EPOCH);
-        book = bookRepository.insert(book);
-        User user = new User("username", "email", "phoneNumber");
-        user = userRepository.insert(user);
-        Review review = new Review("title", "description", 5.0);
-        review.setUser(user);
-        review.setBook(book);
-        review = reviewRepository.insert(review);
-        Wishlist wishlist = new Wishlist("title");
-        wishlist.setUser(user);
-        ArrayList<Book> wishlistBooks = new ArrayList<>();
-        wishlistBooks.add(book);
-        wishlist.setBooks(wishlistBooks);
-        wishlist = wishlistRepository.insert(wishlist);
-
-        // we can delete the documents used to create the collections
-        wishlistRepository.delete(wishlist);
-        reviewRepository.delete(review);
-        bookRepository.delete(book);
-        userRepository.delete(user);
-
-        return null;
+        // runners complete before the application reports readiness, so traffic is only accepted once every
+        // collection and index below exists
+        return args -> {
+            Map<Class<?>, List<IndexDefinition>> schema = schema();
+            ExecutorService executor = Executors.newFixedThreadPool(schema.size());
+            try {
+                CompletableFuture.allOf(schema
+                                .entrySet()
+                                .stream()
+                                .map(entry -> CompletableFuture.runAsync(
+                                        () -> bootstrapCollection(entry.getKey(), entry.getValue()), executor))
+                                .toArray(CompletableFuture[]::new))
+                        .join();
+            } finally {
+                executor.shutdown();
+            }
+        };
+    }
+
+    // every index the repositories rely on; ensureIndex is a no-op for indexes that already exist
+    private static Map<Class<?>, List<IndexDefinition>> schema() {
+        Map<Class<?>, List<IndexDefinition>> schema = new LinkedHashMap<>();
+        // text index of the catalog search, the weights rank title matches above isbn, author and publisher ones
+        schema.put(Book.class, List.of(
+                TextIndexDefinition
+                        .builder()
+                        .named("book_text")
+                        .onField("title", 10F)
+                        .onField("isbn", 8F)
+                        .onField("author", 5F)
+                        .onField("publisher", 2F)
+                        .build()));
+        schema.put(User.class, List.of());
+        // the compound index also serves the queries by user alone
+        schema.put(Review.class, List.of(
+                new Index()
+                        .on("user", Sort.Direction.ASC)
+                        .on("book", Sort.Direction.ASC)
+                        .unique()
+                        .named("user_book_unique"),
+                new Index().on("book", Sort.Direction.ASC).named("book"),
+                // snapshot refreshes look up the denormalized documents by the embedded ids
+                new Index().on("bookSnapshot.bookId", Sort.Direction.ASC).sparse().named("book_snapshot"),
+                new Index().on("userSnapshot.userId", Sort.Direction.ASC).sparse().named("user_snapshot")));
+        schema.put(Wishlist.class, List.of(
+                new Index().on("user", Sort.Direction.ASC).named("user"),
+                // book updates increase the versions of the wishlists referencing them
+                new Index().on("books", Sort.Direction.ASC).named("books"),
+                new Index().on("bookSnapshots.bookId", Sort.Direction.ASC).sparse().named("book_snapshots"),
+                new Index().on("userSnapshot.userId", Sort.Direction.ASC).sparse().named("user_snapshot")));
+        // rating summaries are keyed by the book id
+        schema.put(BookRatingSummary.class, List.of());
+        return schema;
+    }
+
+    private void bootstrapCollection(Class<?> entityClass, List<IndexDefinition> indexes) {
+        if (!mongoTemplate.collectionExists(entityClass)) {
+            try {
+                mongoTemplate.createCollection(entityClass);
+            } catch (DataAccessException e) {
+                // another instance may have created the collection in the meantime
+                if (!mongoTemplate.collectionExists(entityClass)) {
+                    throw e;
+                }
+            }
+        }
+        IndexOperations indexOperations = mongoTemplate.indexOps(entityClass);
+        indexes.forEach(indexOperations::ensureIndex);
+        if (mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(entityClass)
+                .hasVersionProperty()) {
+            backfillVersions(entityClass);
+        }
+
+        logger.info("Collection " + mongoTemplate.getCollectionName(entityClass) + " is ready with " + indexes.size() +
+                    " declared indexes");
+    }
+
+    // documents written before the entities were versioned would be inserted again by the repositories' save,
+    // they start at the version new documents get
+    private void backfillVersions(Class<?> entityClass) {
+        UpdateResult result = mongoTemplate.updateMulti(Query.query(Criteria.where("version").exists(false)),
+                new Update().set("version", 0L), entityClass);
+        if (result.getModifiedCount() > 0) {
+            logger.info("Version initialized for " + result.getModifiedCount() + " documents in " +
+                        mongoTemplate.getCollectionName(entityClass));
+        }
     }
 }
@@ -1,21 +1,44 @@
 package com.bookstore.v1.controllers;
 
 import com.bookstore.v1.dto.BookDTO;
+import com.bookstore.v1.dto.BookSearchDTO;
+import com.bookstore.v1.dto.BookSuggestionDTO;
+import com.bookstore.v1.dto.BulkReportDTO;
+import com.bookstore.v1.dto.FieldSelection;
+import com.bookstore.v1.dto.RatingSummaryDTO;
 import com.bookstore.v1.exception.EmptyFieldException;
 import com.bookstore.v1.exception.EntityNotFoundException;
+import com.bookstore.v1.exception.InvalidCursorException;
 import com.bookstore.v1.exception.InvalidDoubleRange;
+import com.bookstore.v1.exception.InvalidFieldException;
 import com.bookstore.v1.services.BookService;
+import com.bookstore.v1.services.RatingSummaryService;
+import com.bookstore.v1.services.Tagged;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/book")
 public class BookController {
     @Autowired
     private BookService bookService;
+    @Autowired
+    private RatingSummaryService ratingSummaryService;
+    @Autowired
+    private ObjectMapper objectMapper;
 
     @PostMapping("/add-book")
     @ResponseBody
@@ -23,6 +46,13 @@ public class BookController {
         return bookService.addBook(bookDTO);
     }
 
+    @PostMapping(value = "/add-books",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @ResponseBody
+    public BulkReportDTO addBooks(InputStream body) throws IOException {
+        return bookService.addBooks(body);
+    }
+
     @PutMapping("/update-book")
     @ResponseBody
     public BookDTO updateBook(@RequestBody BookDTO bookUpdateDTO) throws EmptyFieldException, EntityNotFoundException {
@@ -37,14 +67,66 @@ public class BookController {
 
     @GetMapping("/get-book/{bookId}")
     @ResponseBody
-    public BookDTO getBookById(@PathVariable String bookId) throws EntityNotFoundException {
-        return bookService.getBookById(bookId);
+    public MappingJacksonValue getBookById(@PathVariable String bookId,
+                                           @RequestParam(defaultValue = "false") Boolean withRating,
+                                           @RequestParam(required = false) String fields,
+                                           WebRequest request) throws
+            EntityNotFoundException, InvalidFieldException {
+        // single books come from the books cache, the selection only trims the response
+        FieldSelection selection = FieldSelection.forBooks(fields);
+        Tagged<BookDTO> book = bookService.getTaggedBookById(bookId, withRating, selection);
+        if (request.checkNotModified(book.getETag())) {
+            return null;
+        }
+        return selection.apply(book.getBody());
+    }
+
+    @GetMapping("/search-books")
+    @ResponseBody
+    public BookSearchDTO searchBooks(@RequestParam String query,
+                                     @RequestParam(defaultValue = "0") Integer page,
+                                     @RequestParam(defaultValue = "20") Integer size) throws EmptyFieldException,
+            InvalidDoubleRange {
+        return bookService.searchBooks(query, page, size);
+    }
+
+    @GetMapping("/suggest")
+    @ResponseBody
+    public List<BookSuggestionDTO> suggestBooks(@RequestParam String prefix,
+                                                @RequestParam(defaultValue = "10") Integer limit) throws
+            InvalidDoubleRange {
+        return bookService.suggestBooks(prefix, limit);
+    }
+
+    @GetMapping("/get-book-rating/{bookId}")
+    @ResponseBody
+    public RatingSummaryDTO getBookRating(@PathVariable String bookId) throws EntityNotFoundException {
+        return ratingSummaryService.getRatingSummary(bookId);
     }
 
     @GetMapping("/get-books")
     @ResponseBody
-    public List<BookDTO> getBooks() {
-        return bookService.getBooks();
+    public MappingJacksonValue getBooks(@RequestParam(required = false) String fields) throws
+            InvalidFieldException {
+        FieldSelection selection = FieldSelection.forBooks(fields);
+        return selection.apply(selection.isAll() ? bookService.getBooks() : bookService.getBooks(selection));
+    }
+
+    @GetMapping(value = "/get-books", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBooks() {
+        return NdjsonResponses.stream(bookService::streamBooks, objectMapper.writerFor(BookDTO.class));
+    }
+
+    @GetMapping("/get-books-page")
+    @ResponseBody
+    public MappingJacksonValue getBooksPage(@RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "50") Integer limit,
+                                            @RequestParam(required = false) String fields) throws
+            InvalidDoubleRange, InvalidCursorException, InvalidFieldException {
+        FieldSelection selection = FieldSelection.forBooks(fields);
+        return selection.apply(selection.isAll()
+                ? bookService.getBooksPage(cursor, limit)
+                : bookService.getBooksPage(cursor, limit, selection));
     }
 
 }
\ No newline at end of file
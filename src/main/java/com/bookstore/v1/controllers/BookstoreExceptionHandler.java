@@ -0,0 +1,43 @@
+package com.bookstore.v1.controllers;
+
+import com.bookstore.v1.dto.ErrorDTO;
+import com.bookstore.v1.exception.BookstoreException;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// writes domain errors directly instead of going through the error page dispatch and the error attributes
+@RestControllerAdvice
+public class BookstoreExceptionHandler {
+    private final Map<Class<?>, HttpStatus> statuses = new ConcurrentHashMap<>();
+
+    @ExceptionHandler(BookstoreException.class)
+    public ResponseEntity<ErrorDTO> handleBookstoreException(BookstoreException exception) {
+        HttpStatus status = statuses.computeIfAbsent(exception.getClass(), BookstoreExceptionHandler::statusOf);
+        return ResponseEntity
+                .status(status)
+                .body(new ErrorDTO(status.value(), status.getReasonPhrase(), exception.getMessage()));
+    }
+
+    // the object changed between reading and writing it, the client reads it again before retrying
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorDTO> handleOptimisticLockingFailure(OptimisticLockingFailureException exception) {
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(new ErrorDTO(HttpStatus.CONFLICT.value(), HttpStatus.CONFLICT.getReasonPhrase(),
+                        "Object was modified concurrently"));
+    }
+
+    private static HttpStatus statusOf(Class<?> exceptionClass) {
+        ResponseStatus responseStatus = AnnotatedElementUtils.findMergedAnnotation(exceptionClass,
+                ResponseStatus.class);
+        return responseStatus != null ? responseStatus.code() : HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+}
@@ -0,0 +1,42 @@
+package com.bookstore.v1.controllers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes a stream of DTOs as newline delimited JSON. The source stream is only opened once the servlet output
+ * stream is available and each item is serialized straight into the generator buffer, so memory use stays bounded
+ * no matter how many documents the cursor returns.
+ */
+final class NdjsonResponses {
+    private NdjsonResponses() {}
+
+    static <T> ResponseEntity<StreamingResponseBody> stream(Supplier<Stream<T>> source, ObjectWriter writer) {
+        // flushing after every value would turn each line into a separate write on the socket
+        ObjectWriter lineWriter = writer.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        StreamingResponseBody body = outputStream -> {
+            try (Stream<T> items = source.get();
+                 JsonGenerator generator = lineWriter.createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+
+                Iterator<T> iterator = items.iterator();
+                while (iterator.hasNext()) {
+                    lineWriter.writeValue(generator, iterator.next());
+                    generator.writeRaw('\n');
+                }
+            }
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+}
@@ -0,0 +1,58 @@
+package com.bookstore.v1.controllers;
+
+import com.bookstore.v1.dto.BookDTO;
+import com.bookstore.v1.dto.BookPageDTO;
+import com.bookstore.v1.dto.BookSearchDTO;
+import com.bookstore.v1.dto.BookSuggestionDTO;
+import com.bookstore.v1.dto.RatingSummaryDTO;
+import com.bookstore.v1.services.ReactiveBookService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// read endpoints of BookController for the reactive mode, flux responses are written as a json array or
+// streamed as ndjson depending on the accept header
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/book")
+public class ReactiveBookController {
+    @Autowired
+    private ReactiveBookService reactiveBookService;
+
+    @GetMapping("/get-book/{bookId}")
+    public Mono<BookDTO> getBookById(@PathVariable String bookId,
+                                     @RequestParam(defaultValue = "false") Boolean withRating) {
+        return reactiveBookService.getBookById(bookId, withRating);
+    }
+
+    @GetMapping("/get-books")
+    public Flux<BookDTO> getBooks() {
+        return reactiveBookService.getBooks();
+    }
+
+    @GetMapping("/get-books-page")
+    public Mono<BookPageDTO> getBooksPage(@RequestParam(required = false) String cursor,
+                                          @RequestParam(defaultValue = "50") Integer limit) {
+        return reactiveBookService.getBooksPage(cursor, limit);
+    }
+
+    @GetMapping("/search-books")
+    public Mono<BookSearchDTO> searchBooks(@RequestParam String query,
+                                           @RequestParam(defaultValue = "0") Integer page,
+                                           @RequestParam(defaultValue = "20") Integer size) {
+        return reactiveBookService.searchBooks(query, page, size);
+    }
+
+    @GetMapping("/suggest")
+    public Flux<BookSuggestionDTO> suggestBooks(@RequestParam String prefix,
+                                                @RequestParam(defaultValue = "10") Integer limit) {
+        return reactiveBookService.suggestBooks(prefix, limit);
+    }
+
+    @GetMapping("/get-book-rating/{bookId}")
+    public Mono<RatingSummaryDTO> getBookRating(@PathVariable String bookId) {
+        return reactiveBookService.getRatingSummary(bookId);
+    }
+}
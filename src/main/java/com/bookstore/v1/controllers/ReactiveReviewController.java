@@ -0,0 +1,64 @@
+package com.bookstore.v1.controllers;
+
+import com.bookstore.v1.dto.ReviewDTO;
+import com.bookstore.v1.exception.EntityNotFoundException;
+import com.bookstore.v1.services.ReactiveReviewService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+// read endpoints of ReviewController for the reactive mode
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/review")
+public class ReactiveReviewController {
+    @Autowired
+    private ReactiveReviewService reactiveReviewService;
+
+    @Autowired
+    private MeterRegistry metricsRegistry;
+    private final AtomicLong badRequestCounter = new AtomicLong();
+
+    @GetMapping("/get-review/{reviewId}")
+    public Mono<ReviewDTO> getReviewById(@PathVariable String reviewId) {
+        return reactiveReviewService.getReviewById(reviewId);
+    }
+
+    @GetMapping("/get-reviews")
+    public Flux<ReviewDTO> getReviews() {
+        return reactiveReviewService.getReviews();
+    }
+
+    @GetMapping("/get-book-reviews/{bookId}")
+    public Flux<ReviewDTO> getBookReviews(@PathVariable String bookId) {
+        return reactiveReviewService.getBookReviews(bookId);
+    }
+
+    @GetMapping("/get-user-reviews/{userId}")
+    public Flux<ReviewDTO> getUserReviews(@PathVariable String userId) {
+        return reactiveReviewService.getUserReviews(userId);
+    }
+
+    @GetMapping("/get-review-broken/{reviewId}")
+    public Mono<ReviewDTO> getReviewBroken(@PathVariable String reviewId) {
+        // coin flip to simulate broken return of review for metric testing
+        var isBroken = new Random().nextInt(2);
+        if (isBroken == 0) {
+            metricsRegistry
+                    .counter("error_on_return_review_broken_count", "endpoint", "get_review_broken")
+                    .increment(badRequestCounter.incrementAndGet());
+            return Mono.error(new EntityNotFoundException("Review not found"));
+        }
+        // simulate long response time for slow metric testing, without holding a thread while waiting
+        return Mono
+                .delay(Duration.ofMillis(100 * new Random().nextInt(20)))
+                .then(reactiveReviewService.getReviewById(reviewId));
+    }
+}
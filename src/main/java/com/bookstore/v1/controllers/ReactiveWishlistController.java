@@ -0,0 +1,30 @@
+package com.bookstore.v1.controllers;
+
+import com.bookstore.v1.dto.WishlistDTO;
+import com.bookstore.v1.services.ReactiveWishlistService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+// read endpoints of WishlistController for the reactive mode
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/wishlist")
+public class ReactiveWishlistController {
+    @Autowired
+    private ReactiveWishlistService reactiveWishlistService;
+
+    @GetMapping("/get-wishlists")
+    public Flux<WishlistDTO> getWishlists() {
+        return reactiveWishlistService.getWishlists();
+    }
+
+    @GetMapping("{userId}/get-wishlists")
+    public Flux<WishlistDTO> getUserWishlists(@PathVariable String userId) {
+        return reactiveWishlistService.getUserWishlists(userId);
+    }
+}
@@ -1,27 +1,41 @@
 package com.bookstore.v1.controllers;
 
+import com.bookstore.v1.dto.BulkItemResultDTO;
+import com.bookstore.v1.dto.FieldSelection;
 import com.bookstore.v1.dto.ReviewCreationDTO;
 import com.bookstore.v1.dto.ReviewDTO;
 import com.bookstore.v1.exception.DuplicateObjectException;
 import com.bookstore.v1.exception.EmptyFieldException;
 import com.bookstore.v1.exception.EntityNotFoundException;
 import com.bookstore.v1.exception.InvalidDoubleRange;
+import com.bookstore.v1.exception.InvalidFieldException;
 import com.bookstore.v1.services.ReviewService;
+import com.bookstore.v1.services.Tagged;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.micrometer.core.annotation.Counted;
 import io.micrometer.core.annotation.Timed;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/review")
 public class ReviewController {
     @Autowired
     private ReviewService reviewService;
+    @Autowired
+    private ObjectMapper objectMapper;
 
     @Autowired
     private MeterRegistry metricsRegistry;
@@ -36,6 +50,15 @@ public class ReviewController {
         return reviewService.addReview(reviewCreationDTO);
     }
 
+    @PostMapping("/add-reviews")
+    @ResponseBody
+    @Timed(value = "bookstore.review.add.reviews.time", description = "Time taken to add a batch of reviews")
+    @Counted(value = "bookstore.review.add.reviews.count", description = "Number of times a batch of reviews is added")
+    public List<BulkItemResultDTO> addReviews(@RequestBody List<ReviewCreationDTO> reviewCreationDTOs) throws
+            InvalidDoubleRange {
+        return reviewService.addReviews(reviewCreationDTOs);
+    }
+
     @PutMapping("/update-review")
     @ResponseBody
     @Timed(value = "bookstore.review.update.review.time", description = "Time taken to update a review")
@@ -57,32 +80,66 @@ public class ReviewController {
     @ResponseBody
     @Timed(value = "bookstore.review.get.review.time", description = "Time taken to get a review")
     @Counted(value = "bookstore.review.get.review.count", description = "Number of times a review is retrieved")
-    public ReviewDTO getReviewById(@PathVariable String reviewId) throws EntityNotFoundException {
-        return reviewService.getReviewById(reviewId);
+    public MappingJacksonValue getReviewById(@PathVariable String reviewId,
+                                             @RequestParam(required = false) String fields) throws
+            EntityNotFoundException, InvalidFieldException {
+        FieldSelection selection = FieldSelection.forReviews(fields);
+        return selection.apply(selection.isAll()
+                ? reviewService.getReviewById(reviewId)
+                : reviewService.getReviewById(reviewId, selection));
     }
 
     @GetMapping("/get-reviews")
     @ResponseBody
     @Timed(value = "bookstore.review.get.reviews.time", description = "Time taken to get all reviews")
     @Counted(value = "bookstore.review.get.reviews.count", description = "Number of times all reviews are retrieved")
-    public List<ReviewDTO> getReviews() {
-        return reviewService.getReviews();
+    public MappingJacksonValue getReviews(@RequestParam(required = false) String fields, WebRequest request) throws
+            InvalidFieldException {
+        FieldSelection selection = FieldSelection.forReviews(fields);
+        Tagged<List<ReviewDTO>> reviews = reviewService.getTaggedReviews(selection);
+        if (request.checkNotModified(reviews.getETag())) {
+            return null;
+        }
+        return selection.apply(reviews.getBody());
+    }
+
+    @GetMapping(value = "/get-reviews", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Timed(value = "bookstore.review.export.reviews.time", description = "Time taken to start streaming all reviews")
+    @Counted(value = "bookstore.review.export.reviews.count", description = "Number of times all reviews are streamed")
+    public ResponseEntity<StreamingResponseBody> exportReviews() {
+        return NdjsonResponses.stream(reviewService::streamReviews, objectMapper.writerFor(ReviewDTO.class));
     }
 
     @GetMapping("/get-book-reviews/{bookId}")
     @ResponseBody
     @Timed(value = "bookstore.review.get.book.reviews.time", description = "Time taken to get all reviews for a book")
     @Counted(value = "bookstore.review.get.book.reviews.count", description = "Number of times all reviews for a book are retrieved")
-    public List<ReviewDTO> getBookReviews(@PathVariable String bookId) throws EntityNotFoundException {
-        return reviewService.getBookReviews(bookId);
+    public MappingJacksonValue getBookReviews(@PathVariable String bookId,
+                                              @RequestParam(required = false) String fields,
+                                              WebRequest request) throws
+            EntityNotFoundException, InvalidFieldException {
+        FieldSelection selection = FieldSelection.forReviews(fields);
+        Tagged<List<ReviewDTO>> reviews = reviewService.getTaggedBookReviews(bookId, selection);
+        if (request.checkNotModified(reviews.getETag())) {
+            return null;
+        }
+        return selection.apply(reviews.getBody());
     }
 
     @GetMapping("/get-user-reviews/{userId}")
     @ResponseBody
     @Timed(value = "bookstore.review.get.user.reviews.time", description = "Time taken to get all reviews for a user")
     @Counted(value = "bookstore.review.get.user.reviews.count", description = "Number of times all reviews for a user are retrieved")
-    public List<ReviewDTO> getUserReviews(@PathVariable String userId) throws EntityNotFoundException {
-        return reviewService.getUserReviews(userId);
+    public MappingJacksonValue getUserReviews(@PathVariable String userId,
+                                              @RequestParam(required = false) String fields,
+                                              WebRequest request) throws
+            EntityNotFoundException, InvalidFieldException {
+        FieldSelection selection = FieldSelection.forReviews(fields);
+        Tagged<List<ReviewDTO>> reviews = reviewService.getTaggedUserReviews(userId, selection);
+        if (request.checkNotModified(reviews.getETag())) {
+            return null;
+        }
+        return selection.apply(reviews.getBody());
     }
 
     @GetMapping("/get-review-broken/{reviewId}")
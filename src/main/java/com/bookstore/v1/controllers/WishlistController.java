@@ -1,34 +1,65 @@
 package com.bookstore.v1.controllers;
 
 
+import com.bookstore.v1.dto.FieldSelection;
 import com.bookstore.v1.dto.WishlistCreationDTO;
 import com.bookstore.v1.dto.WishlistDTO;
 import com.bookstore.v1.exception.EmptyFieldException;
 import com.bookstore.v1.exception.EntityNotFoundException;
 import com.bookstore.v1.exception.InvalidDoubleRange;
+import com.bookstore.v1.exception.InvalidFieldException;
 import com.bookstore.v1.services.ReviewService;
+import com.bookstore.v1.services.Tagged;
 import com.bookstore.v1.services.WishlistService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/wishlist")
 public class WishlistController {
 
     @Autowired
     private WishlistService wishlistService;
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping("/get-wishlists")
     @ResponseBody
-    public List<WishlistDTO> getWishlists(){
-        return wishlistService.getWishlists();
+    public MappingJacksonValue getWishlists(@RequestParam(required = false) String fields) throws
+            InvalidFieldException {
+        FieldSelection selection = FieldSelection.forWishlists(fields);
+        return selection.apply(selection.isAll()
+                ? wishlistService.getWishlists()
+                : wishlistService.getWishlists(selection));
+    }
+
+    @GetMapping(value = "/get-wishlists", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportWishlists() {
+        return NdjsonResponses.stream(wishlistService::streamWishlists, objectMapper.writerFor(WishlistDTO.class));
     }
 
     @GetMapping("{userId}/get-wishlists")
     @ResponseBody
-    public List<WishlistDTO> getUserWishlists(@PathVariable String userId){
-        return wishlistService.getUserWishlists(userId);
+    public MappingJacksonValue getUserWishlists(@PathVariable String userId,
+                                                @RequestParam(required = false) String fields,
+                                                WebRequest request) throws
+            EntityNotFoundException, InvalidFieldException {
+        FieldSelection selection = FieldSelection.forWishlists(fields);
+        Tagged<List<WishlistDTO>> wishlists = wishlistService.getTaggedUserWishlists(userId, selection);
+        if (request.checkNotModified(wishlists.getETag())) {
+            return null;
+        }
+        return selection.apply(wishlists.getBody());
     }
 
     @PostMapping("/add-wishlist")
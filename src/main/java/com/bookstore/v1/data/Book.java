@@ -1,6 +1,7 @@
 package com.bookstore.v1.data;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -12,6 +13,8 @@ import java.util.Objects;
 public class Book {
     @Id
     private String id;
+    @Version
+    private Long version;
     private String title;
     private String author;
     private String publisher;
@@ -48,6 +51,14 @@ public class Book {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getTitle() {
         return title;
     }
@@ -100,6 +111,7 @@ public class Book {
     public String toString() {
         return "Book{" +
                "id='" + id + '\'' +
+               ", version=" + version +
                ", title='" + title + '\'' +
                ", author='" + author + '\'' +
                ", publisher='" + publisher + '\'' +
@@ -114,7 +126,8 @@ public class Book {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Book book = (Book) o;
-        return Objects.equals(id, book.id) && Objects.equals(title, book.title) &&
+        return Objects.equals(id, book.id) && Objects.equals(version, book.version) &&
+               Objects.equals(title, book.title) &&
                Objects.equals(author, book.author) && Objects.equals(publisher, book.publisher) &&
                Objects.equals(isbn, book.isbn) && Objects.equals(publishedDate, book.publishedDate) &&
                Objects.equals(reviews, book.reviews);
@@ -122,6 +135,6 @@ public class Book {
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, title, author, publisher, isbn, publishedDate, reviews);
+        return Objects.hash(id, version, title, author, publisher, isbn, publishedDate, reviews);
     }
 }
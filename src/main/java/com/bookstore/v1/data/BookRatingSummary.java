@@ -0,0 +1,113 @@
+package com.bookstore.v1.data;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+@Document("book_ratings")
+public class BookRatingSummary {
+    @Id
+    private String bookId;
+    private long count;
+    private double sum;
+    private Double min;
+    private Double max;
+    // review count per half-star bucket, keyed by the bucket index (0 for [0, 0.5) ... 10 for 5.0)
+    private Map<String, Long> histogram = new HashMap<>();
+    // token of the rebuild computing this summary, increments leave a summary alone while it is set
+    private String rebuild;
+
+    public BookRatingSummary() {}
+
+    public BookRatingSummary(String bookId) {
+        this.bookId = bookId;
+    }
+
+    public String getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(String bookId) {
+        this.bookId = bookId;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public void setSum(double sum) {
+        this.sum = sum;
+    }
+
+    public Double getMin() {
+        return min;
+    }
+
+    public void setMin(Double min) {
+        this.min = min;
+    }
+
+    public Double getMax() {
+        return max;
+    }
+
+    public void setMax(Double max) {
+        this.max = max;
+    }
+
+    public Map<String, Long> getHistogram() {
+        return histogram;
+    }
+
+    public void setHistogram(Map<String, Long> histogram) {
+        this.histogram = histogram;
+    }
+
+    public String getRebuild() {
+        return rebuild;
+    }
+
+    public void setRebuild(String rebuild) {
+        this.rebuild = rebuild;
+    }
+
+    @Override
+    public String toString() {
+        return "BookRatingSummary{" +
+               "bookId='" + bookId + '\'' +
+               ", count=" + count +
+               ", sum=" + sum +
+               ", min=" + min +
+               ", max=" + max +
+               ", histogram=" + histogram +
+               ", rebuild='" + rebuild + '\'' +
+               '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BookRatingSummary that = (BookRatingSummary) o;
+        return count == that.count && Double.compare(that.sum, sum) == 0 &&
+               Objects.equals(bookId, that.bookId) && Objects.equals(rebuild, that.rebuild) &&
+               Objects.equals(min, that.min) && Objects.equals(max, that.max) &&
+               Objects.equals(histogram, that.histogram);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(bookId, count, sum, min, max, histogram, rebuild);
+    }
+}
@@ -0,0 +1,8 @@
+package com.bookstore.v1.data;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BookRatingSummaryRepository extends MongoRepository<BookRatingSummary, String> {
+}
@@ -1,8 +1,57 @@
 package com.bookstore.v1.data;
 
+import com.bookstore.v1.config.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 public interface BookRepository extends MongoRepository<Book, String> {
+    // cached books are shared between requests, callers must not mutate them
+    @Override
+    @Cacheable(value = CacheConfig.BOOKS_CACHE, key = "#p0", unless = "#result == null")
+    Optional<Book> findById(String id);
+
+    @Override
+    @CacheEvict(value = CacheConfig.BOOKS_CACHE, key = "#p0.id", condition = "#p0.id != null")
+    <S extends Book> S save(S book);
+
+    @Override
+    @CacheEvict(value = CacheConfig.BOOKS_CACHE, allEntries = true)
+    <S extends Book> List<S> saveAll(Iterable<S> books);
+
+    @Override
+    @CacheEvict(value = CacheConfig.BOOKS_CACHE, key = "#p0.id")
+    void delete(Book book);
+
+    @Override
+    @CacheEvict(value = CacheConfig.BOOKS_CACHE, key = "#p0")
+    void deleteById(String id);
+
+    @Override
+    @CacheEvict(value = CacheConfig.BOOKS_CACHE, allEntries = true)
+    void deleteAll(Iterable<? extends Book> books);
+
+    @Override
+    @CacheEvict(value = CacheConfig.BOOKS_CACHE, allEntries = true)
+    void deleteAll();
+
+    // drops a cached book that turned out to be older than the stored one
+    @CacheEvict(value = CacheConfig.BOOKS_CACHE, key = "#p0")
+    default void evict(String id) {
+    }
+
+    List<Book> findAllByOrderByIdAsc(Pageable pageable);
+
+    List<Book> findAllByIdGreaterThanOrderByIdAsc(String id, Pageable pageable);
+
+    @Query("{}")
+    Stream<Book> streamAll();
 }
@@ -0,0 +1,87 @@
+package com.bookstore.v1.data;
+
+import java.util.Objects;
+
+// the fields of a book that are embedded next to its references when denormalization is enabled
+public class BookSnapshot {
+    private String bookId;
+    private String title;
+    private String author;
+    // version of the book the snapshot was taken from, refreshes only replace older snapshots
+    private Long version;
+
+    public BookSnapshot() {}
+
+    public BookSnapshot(String bookId, String title, String author) {
+        this.bookId = bookId;
+        this.title = title;
+        this.author = author;
+    }
+
+    public static BookSnapshot of(Book book) {
+        BookSnapshot snapshot = new BookSnapshot(book.getId(), book.getTitle(), book.getAuthor());
+        snapshot.setVersion(book.getVersion());
+        return snapshot;
+    }
+
+    // a detached book holding only the snapshot fields
+    public Book toBook() {
+        return new Book(bookId, title, author, null, null, null);
+    }
+
+    public String getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(String bookId) {
+        this.bookId = bookId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    @Override
+    public String toString() {
+        return "BookSnapshot{" +
+               "bookId='" + bookId + '\'' +
+               ", title='" + title + '\'' +
+               ", author='" + author + '\'' +
+               ", version=" + version +
+               '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BookSnapshot that = (BookSnapshot) o;
+        return Objects.equals(bookId, that.bookId) && Objects.equals(title, that.title) &&
+               Objects.equals(author, that.author) && Objects.equals(version, that.version);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(bookId, title, author, version);
+    }
+}
@@ -0,0 +1,25 @@
+package com.bookstore.v1.data;
+
+import com.mongodb.DBRef;
+import org.springframework.data.mongodb.core.convert.LazyLoadingProxy;
+
+import java.util.function.Function;
+
+public class LazyReferences {
+    private LazyReferences() {}
+
+    /**
+     * Returns the id of a referenced entity. Lazy DBRef proxies are asked for their underlying reference instead
+     * of an entity getter, since any getter call on the proxy costs a round trip to resolve the whole document.
+     */
+    public static <T> String idOf(T reference, Function<T, String> idGetter) {
+        if (reference == null) {
+            return null;
+        }
+        if (reference instanceof LazyLoadingProxy) {
+            DBRef dbRef = ((LazyLoadingProxy) reference).toDBRef();
+            return dbRef == null ? null : dbRef.getId().toString();
+        }
+        return idGetter.apply(reference);
+    }
+}
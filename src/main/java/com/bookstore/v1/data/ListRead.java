@@ -0,0 +1,12 @@
+package com.bookstore.v1.data;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// marks service methods whose mongo reads may use mongodb.list-read-preference instead of the primary
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ListRead {
+}
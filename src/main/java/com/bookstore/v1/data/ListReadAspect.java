@@ -0,0 +1,27 @@
+package com.bookstore.v1.data;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+@Aspect
+@Component
+public class ListReadAspect {
+    private static final ThreadLocal<Boolean> listRead = ThreadLocal.withInitial(() -> false);
+
+    static boolean isListRead() {
+        return listRead.get();
+    }
+
+    @Around("@annotation(com.bookstore.v1.data.ListRead)")
+    public Object routeListRead(ProceedingJoinPoint joinPoint) throws Throwable {
+        boolean outer = listRead.get();
+        listRead.set(true);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            listRead.set(outer);
+        }
+    }
+}
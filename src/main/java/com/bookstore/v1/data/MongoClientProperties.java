@@ -0,0 +1,134 @@
+package com.bookstore.v1.data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Validated
+@ConfigurationProperties(prefix = "mongodb")
+// unset values keep the option of the connection url, or the driver default when the url has none
+public class MongoClientProperties {
+    @Valid
+    private Pool pool = new Pool();
+    @Valid
+    private Timeouts timeouts = new Timeouts();
+    // wire compressors in order of preference, the server picks the first one it supports
+    private List<@Pattern(regexp = "zstd|snappy|zlib") String> compressors = new ArrayList<>();
+    // read preference of the list, search and export reads, every other read and all writes stay on the primary
+    @NotNull
+    @Pattern(regexp = "primary|primaryPreferred|secondary|secondaryPreferred|nearest")
+    private String listReadPreference = "primary";
+
+    public Pool getPool() {
+        return pool;
+    }
+
+    public void setPool(Pool pool) {
+        this.pool = pool;
+    }
+
+    public Timeouts getTimeouts() {
+        return timeouts;
+    }
+
+    public void setTimeouts(Timeouts timeouts) {
+        this.timeouts = timeouts;
+    }
+
+    public List<String> getCompressors() {
+        return compressors;
+    }
+
+    public void setCompressors(List<String> compressors) {
+        this.compressors = compressors;
+    }
+
+    public String getListReadPreference() {
+        return listReadPreference;
+    }
+
+    public void setListReadPreference(String listReadPreference) {
+        this.listReadPreference = listReadPreference;
+    }
+
+    public static class Pool {
+        @Min(1)
+        private Integer maxSize;
+        @Min(0)
+        private Integer minSize;
+        // how long a request waits for a connection before failing, this bounds the wait queue
+        private Duration maxWaitTime;
+        // zero means idle connections are never closed
+        private Duration maxConnectionIdleTime;
+
+        public Integer getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(Integer maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public Integer getMinSize() {
+            return minSize;
+        }
+
+        public void setMinSize(Integer minSize) {
+            this.minSize = minSize;
+        }
+
+        public Duration getMaxWaitTime() {
+            return maxWaitTime;
+        }
+
+        public void setMaxWaitTime(Duration maxWaitTime) {
+            this.maxWaitTime = maxWaitTime;
+        }
+
+        public Duration getMaxConnectionIdleTime() {
+            return maxConnectionIdleTime;
+        }
+
+        public void setMaxConnectionIdleTime(Duration maxConnectionIdleTime) {
+            this.maxConnectionIdleTime = maxConnectionIdleTime;
+        }
+    }
+
+    public static class Timeouts {
+        private Duration connect;
+        // zero means no timeout
+        private Duration socket;
+        private Duration serverSelection;
+
+        public Duration getConnect() {
+            return connect;
+        }
+
+        public void setConnect(Duration connect) {
+            this.connect = connect;
+        }
+
+        public Duration getSocket() {
+            return socket;
+        }
+
+        public void setSocket(Duration socket) {
+            this.socket = socket;
+        }
+
+        public Duration getServerSelection() {
+            return serverSelection;
+        }
+
+        public void setServerSelection(Duration serverSelection) {
+            this.serverSelection = serverSelection;
+        }
+    }
+}
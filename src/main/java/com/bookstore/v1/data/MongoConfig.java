@@ -1,21 +1,43 @@
 package com.bookstore.v1.data;
 
+import com.bookstore.v1.metrics.SlowCommandListener;
 import com.mongodb.ConnectionString;
 import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoCompressor;
+import com.mongodb.ReadPreference;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoDatabase;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsCommandListener;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
 import org.springframework.data.mongodb.config.AbstractMongoClientConfiguration;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @Configuration
+@EnableConfigurationProperties(MongoClientProperties.class)
 public class MongoConfig extends AbstractMongoClientConfiguration {
 
     @Value("${mongodb.connection.url}")
     private String connectionURL;
+    @Autowired
+    private MongoClientProperties mongoClientProperties;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private SlowCommandListener slowCommandListener;
 
     @Override
     protected String getDatabaseName() {
@@ -24,16 +46,77 @@ public class MongoConfig extends AbstractMongoClientConfiguration {
 
     @Override
     public MongoClient mongoClient() {
-        MongoClientSettings mongoClientSettings = MongoClientSettings
+        return MongoClients.create(mongoClientSettings());
+    }
+
+    // shared with the reactive client, see ReactiveMongoConfig
+    MongoClientSettings mongoClientSettings() {
+        MongoClientProperties.Pool pool = mongoClientProperties.getPool();
+        MongoClientProperties.Timeouts timeouts = mongoClientProperties.getTimeouts();
+        MongoClientSettings.Builder mongoClientSettings = MongoClientSettings
                 .builder()
                 .applyConnectionString(new ConnectionString(connectionURL))
-                .build();
+                // only the properties that are set override the connection url, options tuned in the url stay
+                .applyToConnectionPoolSettings(poolSettings -> {
+                    Optional.ofNullable(pool.getMaxSize()).ifPresent(poolSettings::maxSize);
+                    Optional.ofNullable(pool.getMinSize()).ifPresent(poolSettings::minSize);
+                    Optional.ofNullable(pool.getMaxWaitTime()).ifPresent(time -> poolSettings
+                            .maxWaitTime(time.toMillis(), TimeUnit.MILLISECONDS));
+                    Optional.ofNullable(pool.getMaxConnectionIdleTime()).ifPresent(time -> poolSettings
+                            .maxConnectionIdleTime(time.toMillis(), TimeUnit.MILLISECONDS));
+                })
+                .applyToSocketSettings(socketSettings -> {
+                    Optional.ofNullable(timeouts.getConnect()).ifPresent(time -> socketSettings
+                            .connectTimeout((int) time.toMillis(), TimeUnit.MILLISECONDS));
+                    Optional.ofNullable(timeouts.getSocket()).ifPresent(time -> socketSettings
+                            .readTimeout((int) time.toMillis(), TimeUnit.MILLISECONDS));
+                })
+                .applyToClusterSettings(clusterSettings -> Optional.ofNullable(timeouts.getServerSelection())
+                        .ifPresent(time -> clusterSettings
+                                .serverSelectionTimeout(time.toMillis(), TimeUnit.MILLISECONDS)))
+                // per command and collection timers (mongodb.driver.commands) and pool gauges (mongodb.driver.pool.*)
+                .addCommandListener(new MongoMetricsCommandListener(meterRegistry))
+                .addCommandListener(slowCommandListener)
+                .applyToConnectionPoolSettings(poolSettings -> poolSettings
+                        .addConnectionPoolListener(new MongoMetricsConnectionPoolListener(meterRegistry)));
+        if (!mongoClientProperties.getCompressors().isEmpty()) {
+            mongoClientSettings.compressorList(compressors(mongoClientProperties.getCompressors()));
+        }
 
-        return MongoClients.create(mongoClientSettings);
+        return mongoClientSettings.build();
+    }
+
+    // reads made inside @ListRead methods go to the list read preference, everything else keeps the client's
+    @Override
+    public MongoDatabaseFactory mongoDbFactory() {
+        ReadPreference listReadPreference = ReadPreference.valueOf(mongoClientProperties.getListReadPreference());
+        return new SimpleMongoClientDatabaseFactory(mongoClient(), getDatabaseName()) {
+            @Override
+            protected MongoDatabase doGetMongoDatabase(String dbName) {
+                MongoDatabase database = super.doGetMongoDatabase(dbName);
+                return ListReadAspect.isListRead() ? database.withReadPreference(listReadPreference) : database;
+            }
+        };
     }
 
     @Override
     public Collection getMappingBasePackages() {
         return Collections.singleton("com.bookstore.v1.data");
     }
-}
\ No newline at end of file
+
+    private static List<MongoCompressor> compressors(List<String> names) {
+        return names
+                .stream()
+                .map(name -> {
+                    switch (name) {
+                        case "zstd":
+                            return MongoCompressor.createZstdCompressor();
+                        case "snappy":
+                            return MongoCompressor.createSnappyCompressor();
+                        default:
+                            return MongoCompressor.createZlibCompressor();
+                    }
+                })
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,48 @@
+package com.bookstore.v1.data;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.SimpleReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
+
+// reactive client for the read endpoints served when the application runs as a reactive web application
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableReactiveMongoRepositories(basePackages = "com.bookstore.v1.data.reactive",
+        reactiveMongoTemplateRef = "reactiveMongoTemplate")
+public class ReactiveMongoConfig {
+    @Autowired
+    private MongoConfig mongoConfig;
+
+    @Bean
+    public MongoClient reactiveMongoClient() {
+        return MongoClients.create(mongoConfig.mongoClientSettings());
+    }
+
+    @Bean
+    public ReactiveMongoDatabaseFactory reactiveMongoDatabaseFactory(MongoClient reactiveMongoClient) {
+        return new SimpleReactiveMongoDatabaseFactory(reactiveMongoClient, mongoConfig.getDatabaseName());
+    }
+
+    // the reactive read models map references as plain DBRefs, nothing is resolved while reading
+    @Bean
+    public ReactiveMongoTemplate reactiveMongoTemplate(ReactiveMongoDatabaseFactory reactiveMongoDatabaseFactory,
+                                                       MongoMappingContext mongoMappingContext,
+                                                       MongoCustomConversions customConversions) {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mongoMappingContext);
+        converter.setCustomConversions(customConversions);
+        converter.setCodecRegistryProvider(reactiveMongoDatabaseFactory);
+        converter.afterPropertiesSet();
+        return new ReactiveMongoTemplate(reactiveMongoDatabaseFactory, converter);
+    }
+}
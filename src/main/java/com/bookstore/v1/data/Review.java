@@ -2,6 +2,7 @@ package com.bookstore.v1.data;
 
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -11,6 +12,8 @@ import java.util.Objects;
 public class Review {
     @Id
     private String id;
+    @Version
+    private Long version;
     private String title;
     private String description;
     private Double rating;
@@ -19,6 +22,9 @@ public class Review {
     User user;
     @DBRef(lazy = true)
     Book book;
+    // only written when denormalization is enabled
+    private UserSnapshot userSnapshot;
+    private BookSnapshot bookSnapshot;
 
     public Review() {}
 
@@ -43,6 +49,14 @@ public class Review {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getTitle() {
         return title;
     }
@@ -83,15 +97,34 @@ public class Review {
         this.book = book;
     }
 
+    public UserSnapshot getUserSnapshot() {
+        return userSnapshot;
+    }
+
+    public void setUserSnapshot(UserSnapshot userSnapshot) {
+        this.userSnapshot = userSnapshot;
+    }
+
+    public BookSnapshot getBookSnapshot() {
+        return bookSnapshot;
+    }
+
+    public void setBookSnapshot(BookSnapshot bookSnapshot) {
+        this.bookSnapshot = bookSnapshot;
+    }
+
     @Override
     public String toString() {
         return "Review{" +
                "id='" + id + '\'' +
+               ", version=" + version +
                ", title='" + title + '\'' +
                ", description='" + description + '\'' +
                ", rating=" + rating +
                ", user=" + user +
                ", book=" + book +
+               ", userSnapshot=" + userSnapshot +
+               ", bookSnapshot=" + bookSnapshot +
                '}';
     }
 
@@ -100,14 +133,16 @@ public class Review {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Review review = (Review) o;
-        return Objects.equals(id, review.id) && Objects.equals(title, review.title) &&
+        return Objects.equals(id, review.id) && Objects.equals(version, review.version) &&
+               Objects.equals(title, review.title) &&
                Objects.equals(description, review.description) &&
                Objects.equals(rating, review.rating) && Objects.equals(user, review.user) &&
-               Objects.equals(book, review.book);
+               Objects.equals(book, review.book) && Objects.equals(userSnapshot, review.userSnapshot) &&
+               Objects.equals(bookSnapshot, review.bookSnapshot);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, title, description, rating, user, book);
+        return Objects.hash(id, version, title, description, rating, user, book, userSnapshot, bookSnapshot);
     }
 }
@@ -1,6 +1,7 @@
 package com.bookstore.v1.data;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -11,6 +12,8 @@ import java.util.Objects;
 public class User {
     @Id
     private String id;
+    @Version
+    private Long version;
     private String userName;
     private String email;
     private String phoneNumber;
@@ -55,6 +58,14 @@ public class User {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public void setUserName(String userName) {
         this.userName = userName;
     }
@@ -87,6 +98,7 @@ public class User {
     public String toString() {
         return "User{" +
                "id='" + id + '\'' +
+               ", version=" + version +
                ", userName='" + userName + '\'' +
                ", email='" + email + '\'' +
                ", phoneNumber='" + phoneNumber + '\'' +
@@ -100,13 +112,14 @@ public class User {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         User user = (User) o;
-        return Objects.equals(id, user.id) && Objects.equals(userName, user.userName) &&
+        return Objects.equals(id, user.id) && Objects.equals(version, user.version) &&
+               Objects.equals(userName, user.userName) &&
                Objects.equals(email, user.email) && Objects.equals(phoneNumber, user.phoneNumber) &&
                Objects.equals(reviews, user.reviews) && Objects.equals(wishlists, user.wishlists);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, userName, email, phoneNumber, reviews, wishlists);
+        return Objects.hash(id, version, userName, email, phoneNumber, reviews, wishlists);
     }
 }
@@ -1,8 +1,52 @@
 package com.bookstore.v1.data;
 
+import com.bookstore.v1.config.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 public interface UserRepository extends MongoRepository<User, String> {
+    // cached users are shared between requests, callers must not mutate them
+    @Override
+    @Cacheable(value = CacheConfig.USERS_CACHE, key = "#p0", unless = "#result == null")
+    Optional<User> findById(String id);
+
+    @Override
+    @CacheEvict(value = CacheConfig.USERS_CACHE, key = "#p0.id", condition = "#p0.id != null")
+    <S extends User> S save(S user);
+
+    @Override
+    @CacheEvict(value = CacheConfig.USERS_CACHE, allEntries = true)
+    <S extends User> List<S> saveAll(Iterable<S> users);
+
+    @Override
+    @CacheEvict(value = CacheConfig.USERS_CACHE, key = "#p0.id")
+    void delete(User user);
+
+    @Override
+    @CacheEvict(value = CacheConfig.USERS_CACHE, key = "#p0")
+    void deleteById(String id);
+
+    @Override
+    @CacheEvict(value = CacheConfig.USERS_CACHE, allEntries = true)
+    void deleteAll(Iterable<? extends User> users);
+
+    @Override
+    @CacheEvict(value = CacheConfig.USERS_CACHE, allEntries = true)
+    void deleteAll();
+
+    // drops a cached user that turned out to be older than the stored one
+    @CacheEvict(value = CacheConfig.USERS_CACHE, key = "#p0")
+    default void evict(String id) {
+    }
+
+    @Query("{}")
+    Stream<User> streamAll();
 }
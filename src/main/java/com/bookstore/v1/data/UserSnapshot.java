@@ -0,0 +1,76 @@
+package com.bookstore.v1.data;
+
+import java.util.Objects;
+
+// the fields of a user that are embedded next to its references when denormalization is enabled
+public class UserSnapshot {
+    private String userId;
+    private String userName;
+    // version of the user the snapshot was taken from, refreshes only replace older snapshots
+    private Long version;
+
+    public UserSnapshot() {}
+
+    public UserSnapshot(String userId, String userName) {
+        this.userId = userId;
+        this.userName = userName;
+    }
+
+    public static UserSnapshot of(User user) {
+        UserSnapshot snapshot = new UserSnapshot(user.getId(), user.getUserName());
+        snapshot.setVersion(user.getVersion());
+        return snapshot;
+    }
+
+    // a detached user holding only the snapshot fields
+    public User toUser() {
+        return new User(userId, userName, null, null);
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public void setUserName(String userName) {
+        this.userName = userName;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    @Override
+    public String toString() {
+        return "UserSnapshot{" +
+               "userId='" + userId + '\'' +
+               ", userName='" + userName + '\'' +
+               ", version=" + version +
+               '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        UserSnapshot that = (UserSnapshot) o;
+        return Objects.equals(userId, that.userId) && Objects.equals(userName, that.userName) &&
+               Objects.equals(version, that.version);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId, userName, version);
+    }
+}
@@ -1,6 +1,7 @@
 package com.bookstore.v1.data;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -12,12 +13,17 @@ import java.util.Objects;
 public class Wishlist {
     @Id
     private String id;
+    @Version
+    private Long version;
     private String title;
 
     @DBRef(lazy = true)
     User user;
     @DBRef(lazy = true)
     private List<Book> books = new ArrayList<>();
+    // only written when denormalization is enabled
+    private UserSnapshot userSnapshot;
+    private List<BookSnapshot> bookSnapshots;
 
     public Wishlist() {}
 
@@ -38,6 +44,14 @@ public class Wishlist {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getTitle() {
         return title;
     }
@@ -66,13 +80,32 @@ public class Wishlist {
         this.books.add(book);
     }
 
+    public UserSnapshot getUserSnapshot() {
+        return userSnapshot;
+    }
+
+    public void setUserSnapshot(UserSnapshot userSnapshot) {
+        this.userSnapshot = userSnapshot;
+    }
+
+    public List<BookSnapshot> getBookSnapshots() {
+        return bookSnapshots;
+    }
+
+    public void setBookSnapshots(List<BookSnapshot> bookSnapshots) {
+        this.bookSnapshots = bookSnapshots;
+    }
+
     @Override
     public String toString() {
         return "Wishlist{" +
                "id='" + id + '\'' +
+               ", version=" + version +
                ", title='" + title + '\'' +
                ", user=" + user +
                ", books=" + books +
+               ", userSnapshot=" + userSnapshot +
+               ", bookSnapshots=" + bookSnapshots +
                '}';
     }
 
@@ -81,12 +114,15 @@ public class Wishlist {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Wishlist wishlist = (Wishlist) o;
-        return Objects.equals(id, wishlist.id) && Objects.equals(title, wishlist.title) &&
-               Objects.equals(user, wishlist.user) && Objects.equals(books, wishlist.books);
+        return Objects.equals(id, wishlist.id) && Objects.equals(version, wishlist.version) &&
+               Objects.equals(title, wishlist.title) &&
+               Objects.equals(user, wishlist.user) && Objects.equals(books, wishlist.books) &&
+               Objects.equals(userSnapshot, wishlist.userSnapshot) &&
+               Objects.equals(bookSnapshots, wishlist.bookSnapshots);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, title, user, books);
+        return Objects.hash(id, version, title, user, books, userSnapshot, bookSnapshots);
     }
 }
@@ -1,13 +1,17 @@
 package com.bookstore.v1.data;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface WishlistRepository extends MongoRepository<Wishlist, String> {
 
     List<Wishlist> findAllByUser(User user);
 
+    @Query("{}")
+    Stream<Wishlist> streamAll();
 }
@@ -0,0 +1,17 @@
+package com.bookstore.v1.data.reactive;
+
+import com.mongodb.DBRef;
+import org.bson.types.ObjectId;
+
+public final class DbRefs {
+    private DbRefs() {}
+
+    // ids that look like object ids are stored as object ids, the same way the blocking converter writes them
+    public static DBRef of(String collection, String id) {
+        return new DBRef(collection, ObjectId.isValid(id) ? new ObjectId(id) : id);
+    }
+
+    public static String idOf(DBRef reference) {
+        return reference == null ? null : reference.getId().toString();
+    }
+}
@@ -0,0 +1,13 @@
+package com.bookstore.v1.data.reactive;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface ReactiveBookRepository extends ReactiveMongoRepository<ReactiveBook, String> {
+    Flux<ReactiveBook> findAllByOrderByIdAsc(Pageable pageable);
+
+    Flux<ReactiveBook> findAllByIdGreaterThanOrderByIdAsc(String id, Pageable pageable);
+}
@@ -0,0 +1,66 @@
+package com.bookstore.v1.data.reactive;
+
+import com.mongodb.DBRef;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// read model of the reviews collection for the reactive stack; the reactive template cannot resolve @DBRef
+// associations, so the references are mapped as plain DBRefs and resolved by the services in batches
+@Document("reviews")
+public class ReactiveReview {
+    @Id
+    private String id;
+    private String title;
+    private String description;
+    private Double rating;
+    private DBRef user;
+    private DBRef book;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public Double getRating() {
+        return rating;
+    }
+
+    public void setRating(Double rating) {
+        this.rating = rating;
+    }
+
+    public DBRef getUser() {
+        return user;
+    }
+
+    public void setUser(DBRef user) {
+        this.user = user;
+    }
+
+    public DBRef getBook() {
+        return book;
+    }
+
+    public void setBook(DBRef book) {
+        this.book = book;
+    }
+}
@@ -0,0 +1,13 @@
+package com.bookstore.v1.data.reactive;
+
+import com.mongodb.DBRef;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface ReactiveReviewRepository extends ReactiveMongoRepository<ReactiveReview, String> {
+    Flux<ReactiveReview> findAllByBook(DBRef book);
+
+    Flux<ReactiveReview> findAllByUser(DBRef user);
+}
@@ -0,0 +1,8 @@
+package com.bookstore.v1.data.reactive;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReactiveUserRepository extends ReactiveMongoRepository<ReactiveUser, String> {
+}
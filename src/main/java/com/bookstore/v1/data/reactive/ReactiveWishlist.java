@@ -0,0 +1,50 @@
+package com.bookstore.v1.data.reactive;
+
+import com.mongodb.DBRef;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// read model of the wishlists collection for the reactive stack, see ReactiveReview for the references
+@Document("wishlists")
+public class ReactiveWishlist {
+    @Id
+    private String id;
+    private String title;
+    private DBRef user;
+    private List<DBRef> books = new ArrayList<>();
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public DBRef getUser() {
+        return user;
+    }
+
+    public void setUser(DBRef user) {
+        this.user = user;
+    }
+
+    public List<DBRef> getBooks() {
+        return books;
+    }
+
+    public void setBooks(List<DBRef> books) {
+        this.books = books;
+    }
+}
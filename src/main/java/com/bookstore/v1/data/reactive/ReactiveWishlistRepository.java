@@ -0,0 +1,11 @@
+package com.bookstore.v1.data.reactive;
+
+import com.mongodb.DBRef;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface ReactiveWishlistRepository extends ReactiveMongoRepository<ReactiveWishlist, String> {
+    Flux<ReactiveWishlist> findAllByUser(DBRef user);
+}
@@ -1,6 +1,7 @@
 package com.bookstore.v1.dto;
 
 import com.bookstore.v1.data.Book;
+import com.fasterxml.jackson.annotation.JsonInclude;
 
 import java.time.LocalDate;
 import java.util.Objects;
@@ -12,6 +13,9 @@ public class BookDTO {
     private String publisher;
     private String isbn;
     private LocalDate publishedDate;
+    // only embedded when explicitly requested
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private RatingSummaryDTO rating;
 
     public BookDTO() {}
 
@@ -81,6 +85,14 @@ public class BookDTO {
         this.publishedDate = publishedDate;
     }
 
+    public RatingSummaryDTO getRating() {
+        return rating;
+    }
+
+    public void setRating(RatingSummaryDTO rating) {
+        this.rating = rating;
+    }
+
     public Book toBook(Boolean withoutId) {
         Book book = new Book();
         if (!withoutId) {
@@ -101,12 +113,13 @@ public class BookDTO {
         BookDTO bookDTO = (BookDTO) o;
         return Objects.equals(id, bookDTO.id) && Objects.equals(title, bookDTO.title) &&
                Objects.equals(author, bookDTO.author) && Objects.equals(publisher, bookDTO.publisher) &&
-               Objects.equals(isbn, bookDTO.isbn) && Objects.equals(publishedDate, bookDTO.publishedDate);
+               Objects.equals(isbn, bookDTO.isbn) && Objects.equals(publishedDate, bookDTO.publishedDate) &&
+               Objects.equals(rating, bookDTO.rating);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, title, author, publisher, isbn, publishedDate);
+        return Objects.hash(id, title, author, publisher, isbn, publishedDate, rating);
     }
 
 }
\ No newline at end of file
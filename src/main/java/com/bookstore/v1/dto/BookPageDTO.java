@@ -0,0 +1,45 @@
+package com.bookstore.v1.dto;
+
+import java.util.List;
+import java.util.Objects;
+
+public class BookPageDTO {
+    private List<BookDTO> books;
+    private String nextCursor;
+
+    public BookPageDTO() {}
+
+    public BookPageDTO(List<BookDTO> books, String nextCursor) {
+        this.books = books;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<BookDTO> getBooks() {
+        return books;
+    }
+
+    public void setBooks(List<BookDTO> books) {
+        this.books = books;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BookPageDTO that = (BookPageDTO) o;
+        return Objects.equals(books, that.books) && Objects.equals(nextCursor, that.nextCursor);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(books, nextCursor);
+    }
+}
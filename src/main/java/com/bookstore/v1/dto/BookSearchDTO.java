@@ -0,0 +1,67 @@
+package com.bookstore.v1.dto;
+
+import java.util.List;
+import java.util.Objects;
+
+public class BookSearchDTO {
+    // most relevant first
+    private List<BookDTO> books;
+    private Integer page;
+    private Integer size;
+    private Boolean hasNext;
+
+    public BookSearchDTO() {}
+
+    public BookSearchDTO(List<BookDTO> books, Integer page, Integer size, Boolean hasNext) {
+        this.books = books;
+        this.page = page;
+        this.size = size;
+        this.hasNext = hasNext;
+    }
+
+    public List<BookDTO> getBooks() {
+        return books;
+    }
+
+    public void setBooks(List<BookDTO> books) {
+        this.books = books;
+    }
+
+    public Integer getPage() {
+        return page;
+    }
+
+    public void setPage(Integer page) {
+        this.page = page;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+
+    public Boolean getHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(Boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BookSearchDTO that = (BookSearchDTO) o;
+        return Objects.equals(books, that.books) && Objects.equals(page, that.page) &&
+               Objects.equals(size, that.size) && Objects.equals(hasNext, that.hasNext);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(books, page, size, hasNext);
+    }
+}
@@ -0,0 +1,56 @@
+package com.bookstore.v1.dto;
+
+import java.util.Objects;
+
+public class BookSuggestionDTO {
+    private String text;
+    // title or author
+    private String field;
+    private String bookId;
+
+    public BookSuggestionDTO() {}
+
+    public BookSuggestionDTO(String text, String field, String bookId) {
+        this.text = text;
+        this.field = field;
+        this.bookId = bookId;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public void setField(String field) {
+        this.field = field;
+    }
+
+    public String getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(String bookId) {
+        this.bookId = bookId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BookSuggestionDTO that = (BookSuggestionDTO) o;
+        return Objects.equals(text, that.text) && Objects.equals(field, that.field) &&
+               Objects.equals(bookId, that.bookId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(text, field, bookId);
+    }
+}
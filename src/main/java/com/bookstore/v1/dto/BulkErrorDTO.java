@@ -0,0 +1,45 @@
+package com.bookstore.v1.dto;
+
+import java.util.Objects;
+
+public class BulkErrorDTO {
+    // position of the record in the request body, starting at 0
+    private Long index;
+    private String message;
+
+    public BulkErrorDTO() {}
+
+    public BulkErrorDTO(Long index, String message) {
+        this.index = index;
+        this.message = message;
+    }
+
+    public Long getIndex() {
+        return index;
+    }
+
+    public void setIndex(Long index) {
+        this.index = index;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BulkErrorDTO that = (BulkErrorDTO) o;
+        return Objects.equals(index, that.index) && Objects.equals(message, that.message);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(index, message);
+    }
+}
@@ -0,0 +1,67 @@
+package com.bookstore.v1.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Objects;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemResultDTO {
+    // position of the item in the request body, starting at 0
+    private Long index;
+    // id of the created object, null when the item failed
+    private String id;
+    private String error;
+
+    public BulkItemResultDTO() {}
+
+    public BulkItemResultDTO(Long index, String id, String error) {
+        this.index = index;
+        this.id = id;
+        this.error = error;
+    }
+
+    public static BulkItemResultDTO created(long index, String id) {
+        return new BulkItemResultDTO(index, id, null);
+    }
+
+    public static BulkItemResultDTO failed(long index, String error) {
+        return new BulkItemResultDTO(index, null, error);
+    }
+
+    public Long getIndex() {
+        return index;
+    }
+
+    public void setIndex(Long index) {
+        this.index = index;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BulkItemResultDTO that = (BulkItemResultDTO) o;
+        return Objects.equals(index, that.index) && Objects.equals(id, that.id) && Objects.equals(error, that.error);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(index, id, error);
+    }
+}
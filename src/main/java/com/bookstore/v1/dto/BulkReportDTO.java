@@ -0,0 +1,89 @@
+package com.bookstore.v1.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+public class BulkReportDTO {
+    // a file of bad records must not turn into a report as large as the file, the errors past these are counted
+    public static final int MAX_ERRORS = 1000;
+
+    private Long received = 0L;
+    private Long inserted = 0L;
+    private Long failed = 0L;
+    private List<BulkErrorDTO> errors = new ArrayList<>();
+    private Long errorsTruncated = 0L;
+
+    public BulkReportDTO() {}
+
+    public BulkReportDTO(Long received, Long inserted, Long failed, List<BulkErrorDTO> errors) {
+        this.received = received;
+        this.inserted = inserted;
+        this.failed = failed;
+        this.errors = errors;
+    }
+
+    public void addError(Long index, String message) {
+        failed++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(new BulkErrorDTO(index, message));
+        } else {
+            errorsTruncated++;
+        }
+    }
+
+    public Long getReceived() {
+        return received;
+    }
+
+    public void setReceived(Long received) {
+        this.received = received;
+    }
+
+    public Long getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(Long inserted) {
+        this.inserted = inserted;
+    }
+
+    public Long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(Long failed) {
+        this.failed = failed;
+    }
+
+    public List<BulkErrorDTO> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<BulkErrorDTO> errors) {
+        this.errors = errors;
+    }
+
+    public Long getErrorsTruncated() {
+        return errorsTruncated;
+    }
+
+    public void setErrorsTruncated(Long errorsTruncated) {
+        this.errorsTruncated = errorsTruncated;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BulkReportDTO that = (BulkReportDTO) o;
+        return Objects.equals(received, that.received) && Objects.equals(inserted, that.inserted) &&
+               Objects.equals(failed, that.failed) && Objects.equals(errors, that.errors) &&
+               Objects.equals(errorsTruncated, that.errorsTruncated);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(received, inserted, failed, errors, errorsTruncated);
+    }
+}
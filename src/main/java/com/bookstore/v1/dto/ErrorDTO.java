@@ -0,0 +1,55 @@
+package com.bookstore.v1.dto;
+
+import java.util.Objects;
+
+public class ErrorDTO {
+    private Integer status;
+    private String error;
+    private String message;
+
+    public ErrorDTO() {}
+
+    public ErrorDTO(Integer status, String error, String message) {
+        this.status = status;
+        this.error = error;
+        this.message = message;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ErrorDTO errorDTO = (ErrorDTO) o;
+        return Objects.equals(status, errorDTO.status) && Objects.equals(error, errorDTO.error) &&
+               Objects.equals(message, errorDTO.message);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(status, error, message);
+    }
+}
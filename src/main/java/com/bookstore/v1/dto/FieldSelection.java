@@ -0,0 +1,158 @@
+package com.bookstore.v1.dto;
+
+import com.bookstore.v1.exception.InvalidFieldException;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.util.*;
+
+/**
+ * The fields a client asked for with the fields query parameter, e.g. {@code id,title,user.userName}. Services
+ * turn it into a mongo projection and skip resolving the relations that were not asked for, the response is then
+ * trimmed to the selected fields through jackson filters.
+ */
+public class FieldSelection {
+    public static final String BOOK_FILTER = "bookFilter";
+    public static final String USER_FILTER = "userFilter";
+    public static final String REVIEW_FILTER = "reviewFilter";
+    public static final String WISHLIST_FILTER = "wishlistFilter";
+
+    private static final Set<String> BOOK_FIELDS =
+            Set.of("id", "title", "author", "publisher", "isbn", "publishedDate", "rating");
+    private static final Set<String> USER_FIELDS = Set.of("id", "userName", "email", "phoneNumber");
+
+    private final String filterId;
+    private final Map<String, String> nestedFilterIds;
+    // selected field -> selected fields of the nested object, empty for plain fields or a whole nested object;
+    // null when every field is selected
+    private final Map<String, Set<String>> selected;
+
+    private FieldSelection(String filterId, Map<String, String> nestedFilterIds, Map<String, Set<String>> selected) {
+        this.filterId = filterId;
+        this.nestedFilterIds = nestedFilterIds;
+        this.selected = selected;
+    }
+
+    public static FieldSelection forBooks(String fields) throws InvalidFieldException {
+        Map<String, Set<String>> selectable = new HashMap<>();
+        BOOK_FIELDS.forEach(field -> selectable.put(field, Set.of()));
+        return parse(fields, BOOK_FILTER, Map.of(), selectable);
+    }
+
+    public static FieldSelection forReviews(String fields) throws InvalidFieldException {
+        Map<String, Set<String>> selectable = new HashMap<>();
+        Set.of("id", "title", "description", "rating", "userId", "bookId")
+                .forEach(field -> selectable.put(field, Set.of()));
+        selectable.put("user", USER_FIELDS);
+        selectable.put("book", BOOK_FIELDS);
+        return parse(fields, REVIEW_FILTER, Map.of("user", USER_FILTER, "book", BOOK_FILTER), selectable);
+    }
+
+    public static FieldSelection forWishlists(String fields) throws InvalidFieldException {
+        Map<String, Set<String>> selectable = new HashMap<>();
+        Set.of("id", "title", "userId").forEach(field -> selectable.put(field, Set.of()));
+        selectable.put("user", USER_FIELDS);
+        selectable.put("books", BOOK_FIELDS);
+        return parse(fields, WISHLIST_FILTER, Map.of("user", USER_FILTER, "books", BOOK_FILTER), selectable);
+    }
+
+    private static FieldSelection parse(String fields, String filterId, Map<String, String> nestedFilterIds,
+                                        Map<String, Set<String>> selectable) throws InvalidFieldException {
+        if (fields == null || fields.isBlank()) {
+            return new FieldSelection(filterId, nestedFilterIds, null);
+        }
+        Map<String, Set<String>> selected = new TreeMap<>();
+        for (String field : fields.split(",")) {
+            field = field.trim();
+            if (field.isEmpty()) {
+                continue;
+            }
+            int dot = field.indexOf('.');
+            String name = dot < 0 ? field : field.substring(0, dot);
+            if (!selectable.containsKey(name)) {
+                throw new InvalidFieldException(field);
+            }
+            Set<String> nested = selected.computeIfAbsent(name, key -> new TreeSet<>());
+            if (dot >= 0) {
+                String nestedName = field.substring(dot + 1);
+                if (!selectable.get(name).contains(nestedName)) {
+                    throw new InvalidFieldException(field);
+                }
+                nested.add(nestedName);
+            }
+        }
+        return new FieldSelection(filterId, nestedFilterIds, selected.isEmpty() ? null : selected);
+    }
+
+    public boolean isAll() {
+        return selected == null;
+    }
+
+    public boolean includes(String field) {
+        return selected == null || selected.containsKey(field);
+    }
+
+    // the selected top level fields, empty when every field is selected
+    public Set<String> fields() {
+        return selected == null ? Set.of() : selected.keySet();
+    }
+
+    public MappingJacksonValue apply(Object body) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        if (selected == null) {
+            return value;
+        }
+        SimpleFilterProvider filters = new SimpleFilterProvider().setFailOnUnknownId(false);
+        filters.addFilter(filterId, SimpleBeanPropertyFilter.filterOutAllExcept(selected.keySet()));
+        selected.forEach((field, nested) -> {
+            if (!nested.isEmpty() && nestedFilterIds.containsKey(field)) {
+                filters.addFilter(nestedFilterIds.get(field), SimpleBeanPropertyFilter.filterOutAllExcept(nested));
+            }
+        });
+        value.setFilters(filters);
+        return value;
+    }
+
+    /**
+     * Attaches the filters to the dtos through mix-ins, so the dtos themselves stay free of them. Without a
+     * selection no filter is registered under these ids and every field is written.
+     */
+    public static void registerFilters(ObjectMapper objectMapper) {
+        objectMapper.addMixIn(BookDTO.class, BookFilter.class);
+        objectMapper.addMixIn(UserDTO.class, UserFilter.class);
+        objectMapper.addMixIn(ReviewDTO.class, ReviewFilter.class);
+        objectMapper.addMixIn(WishlistDTO.class, WishlistFilter.class);
+        objectMapper.setFilterProvider(new SimpleFilterProvider().setFailOnUnknownId(false));
+    }
+
+    @Override
+    public String toString() {
+        if (selected == null) {
+            return "*";
+        }
+        StringJoiner fields = new StringJoiner(",");
+        selected.forEach((field, nested) -> {
+            if (nested.isEmpty()) {
+                fields.add(field);
+            } else {
+                nested.forEach(nestedField -> fields.add(field + '.' + nestedField));
+            }
+        });
+        return fields.toString();
+    }
+
+    @JsonFilter(BOOK_FILTER)
+    private abstract static class BookFilter {}
+
+    @JsonFilter(USER_FILTER)
+    private abstract static class UserFilter {}
+
+    @JsonFilter(REVIEW_FILTER)
+    private abstract static class ReviewFilter {}
+
+    @JsonFilter(WISHLIST_FILTER)
+    private abstract static class WishlistFilter {}
+}
@@ -0,0 +1,97 @@
+package com.bookstore.v1.dto;
+
+import com.bookstore.v1.data.BookRatingSummary;
+import com.bookstore.v1.services.RatingSummaryService;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+public class RatingSummaryDTO {
+    private String bookId;
+    private Long count;
+    private Double average;
+    private Double min;
+    private Double max;
+    // review count per half-star bucket, keyed by the lower bound of the bucket ("0.0" ... "5.0")
+    private Map<String, Long> histogram;
+
+    public RatingSummaryDTO() {}
+
+    public RatingSummaryDTO(BookRatingSummary summary) {
+        this.bookId = summary.getBookId();
+        this.count = summary.getCount();
+        this.average = summary.getCount() > 0 ? summary.getSum() / summary.getCount() : null;
+        this.min = summary.getMin();
+        this.max = summary.getMax();
+        this.histogram = new LinkedHashMap<>();
+        for (int bucket = 0; bucket < RatingSummaryService.HISTOGRAM_BUCKETS; bucket++) {
+            Long bucketCount = summary.getHistogram() == null ? null :
+                    summary.getHistogram().get(String.valueOf(bucket));
+            this.histogram.put(String.valueOf(bucket / 2.0), bucketCount == null ? 0L : bucketCount);
+        }
+    }
+
+    public String getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(String bookId) {
+        this.bookId = bookId;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+
+    public void setCount(Long count) {
+        this.count = count;
+    }
+
+    public Double getAverage() {
+        return average;
+    }
+
+    public void setAverage(Double average) {
+        this.average = average;
+    }
+
+    public Double getMin() {
+        return min;
+    }
+
+    public void setMin(Double min) {
+        this.min = min;
+    }
+
+    public Double getMax() {
+        return max;
+    }
+
+    public void setMax(Double max) {
+        this.max = max;
+    }
+
+    public Map<String, Long> getHistogram() {
+        return histogram;
+    }
+
+    public void setHistogram(Map<String, Long> histogram) {
+        this.histogram = histogram;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RatingSummaryDTO that = (RatingSummaryDTO) o;
+        return Objects.equals(bookId, that.bookId) && Objects.equals(count, that.count) &&
+               Objects.equals(average, that.average) && Objects.equals(min, that.min) &&
+               Objects.equals(max, that.max) && Objects.equals(histogram, that.histogram);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(bookId, count, average, min, max, histogram);
+    }
+}
@@ -1,6 +1,9 @@
 package com.bookstore.v1.dto;
 
+import com.bookstore.v1.data.Book;
+import com.bookstore.v1.data.LazyReferences;
 import com.bookstore.v1.data.Review;
+import com.bookstore.v1.data.User;
 
 import java.util.Objects;
 
@@ -40,6 +43,21 @@ public class ReviewDTO {
         }
     }
 
+    public ReviewDTO(Review review, User user, Book book) {
+        this.id = review.getId();
+        this.title = review.getTitle();
+        this.description = review.getDescription();
+        this.rating = review.getRating();
+        this.userId = LazyReferences.idOf(review.getUser(), User::getId);
+        this.bookId = LazyReferences.idOf(review.getBook(), Book::getId);
+        if (user != null) {
+            this.user = new UserDTO(user);
+        }
+        if (book != null) {
+            this.book = new BookDTO(book);
+        }
+    }
+
     public String getId() {
         return id;
     }
@@ -1,6 +1,9 @@
 package com.bookstore.v1.dto;
 
+import com.bookstore.v1.data.Book;
+import com.bookstore.v1.data.LazyReferences;
 import com.bookstore.v1.data.Review;
+import com.bookstore.v1.data.User;
 import com.bookstore.v1.data.Wishlist;
 
 import java.util.List;
@@ -39,6 +42,26 @@ public class WishlistDTO {
         this.books = wishlist.getBooks().stream().map(book->new BookDTO(book)).collect(Collectors.toList());
     }
 
+    public WishlistDTO(Wishlist wishlist, Boolean withUser, List<Book> books) {
+        this.id = wishlist.getId();
+        this.title = wishlist.getTitle();
+        this.userId = LazyReferences.idOf(wishlist.getUser(), User::getId);
+        if (withUser) {
+            this.user = new UserDTO(wishlist.getUser());
+        }
+        if (books != null) {
+            this.books = books.stream().map(book -> new BookDTO(book)).collect(Collectors.toList());
+        }
+    }
+
+    public WishlistDTO(Wishlist wishlist, User user, List<Book> books) {
+        this.id = wishlist.getId();
+        this.title = wishlist.getTitle();
+        this.userId = user.getId();
+        this.user = new UserDTO(user);
+        this.books = books.stream().map(book -> new BookDTO(book)).collect(Collectors.toList());
+    }
+
     public String getId() {
         return id;
     }
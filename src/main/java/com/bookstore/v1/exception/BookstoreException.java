@@ -0,0 +1,31 @@
+package com.bookstore.v1.exception;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+// base class of the domain exceptions, which are thrown for expected outcomes like missing entities or invalid
+// fields; when stack trace capture is disabled they skip fillInStackTrace and can be shared between requests
+public abstract class BookstoreException extends RuntimeException {
+    private static volatile boolean captureStackTraces = true;
+
+    protected BookstoreException(String message) {
+        super(message, null, captureStackTraces, captureStackTraces);
+    }
+
+    public static boolean isCaptureStackTraces() {
+        return captureStackTraces;
+    }
+
+    public static void setCaptureStackTraces(boolean captureStackTraces) {
+        BookstoreException.captureStackTraces = captureStackTraces;
+    }
+
+    // stackless instances carry no request specific state, so one instance per message is enough
+    protected static <E extends BookstoreException> E shared(Map<String, E> instances, String key,
+                                                           Supplier<E> factory) {
+        if (captureStackTraces) {
+            return factory.get();
+        }
+        return instances.computeIfAbsent(key, ignored -> factory.get());
+    }
+}
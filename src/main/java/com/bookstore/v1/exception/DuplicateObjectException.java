@@ -4,11 +4,19 @@ package com.bookstore.v1.exception;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 @ResponseStatus(value = HttpStatus.BAD_REQUEST)
-public class DuplicateObjectException extends RuntimeException {
+public class DuplicateObjectException extends BookstoreException {
+    private static final Map<String, DuplicateObjectException> sharedInstances = new ConcurrentHashMap<>();
     private static final String duplicateObjectTemplate = "Object: %s already exists";
 
     public DuplicateObjectException(String object) {
         super(String.format(duplicateObjectTemplate, object));
     }
+
+    public static DuplicateObjectException of(String object) {
+        return shared(sharedInstances, object, () -> new DuplicateObjectException(object));
+    }
 }
@@ -3,11 +3,19 @@ package com.bookstore.v1.exception;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 @ResponseStatus(value = HttpStatus.BAD_REQUEST)
-public class EmptyFieldException extends RuntimeException {
+public class EmptyFieldException extends BookstoreException {
+    private static final Map<String, EmptyFieldException> sharedInstances = new ConcurrentHashMap<>();
     private static final String emptyFieldTemplate = "Field: %s is empty";
 
     public EmptyFieldException(String field) {
         super(String.format(emptyFieldTemplate, field));
     }
+
+    public static EmptyFieldException of(String field) {
+        return shared(sharedInstances, field, () -> new EmptyFieldException(field));
+    }
 }
@@ -3,11 +3,19 @@ package com.bookstore.v1.exception;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 @ResponseStatus(value = HttpStatus.BAD_REQUEST)
-public class EntityNotFoundException extends RuntimeException {
+public class EntityNotFoundException extends BookstoreException {
+    private static final Map<String, EntityNotFoundException> sharedInstances = new ConcurrentHashMap<>();
     private static final String entityNotFoundTemplate = "Entity: %s was not found";
 
     public EntityNotFoundException(String entity) {
         super(String.format(entityNotFoundTemplate, entity));
     }
-}
\ No newline at end of file
+
+    public static EntityNotFoundException of(String entity) {
+        return shared(sharedInstances, entity, () -> new EntityNotFoundException(entity));
+    }
+}
@@ -0,0 +1,13 @@
+package com.bookstore.v1.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+public class InvalidCursorException extends BookstoreException {
+    private static final String invalidCursorTemplate = "Cursor: %s is invalid";
+
+    public InvalidCursorException(String cursor) {
+        super(String.format(invalidCursorTemplate, cursor));
+    }
+}
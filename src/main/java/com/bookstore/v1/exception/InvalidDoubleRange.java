@@ -3,11 +3,19 @@ package com.bookstore.v1.exception;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 @ResponseStatus(value = HttpStatus.BAD_REQUEST)
-public class InvalidDoubleRange extends RuntimeException {
+public class InvalidDoubleRange extends BookstoreException {
+    private static final Map<String, InvalidDoubleRange> sharedInstances = new ConcurrentHashMap<>();
     private static final String invalidDoubleRangeTemplate = "Field: %s must be between %f and %f";
 
     public InvalidDoubleRange(String field, Double min, Double max) {
         super(String.format(invalidDoubleRangeTemplate, field, min, max));
     }
+
+    public static InvalidDoubleRange of(String field, Double min, Double max) {
+        return shared(sharedInstances, field + ":" + min + ":" + max, () -> new InvalidDoubleRange(field, min, max));
+    }
 }
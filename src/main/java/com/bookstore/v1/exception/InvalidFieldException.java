@@ -0,0 +1,13 @@
+package com.bookstore.v1.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+public class InvalidFieldException extends BookstoreException {
+    private static final String invalidFieldTemplate = "Field: %s can not be selected";
+
+    public InvalidFieldException(String field) {
+        super(String.format(invalidFieldTemplate, field));
+    }
+}
@@ -0,0 +1,21 @@
+package com.bookstore.v1.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+public class WriteQueueFullException extends BookstoreException {
+    private static final Map<String, WriteQueueFullException> sharedInstances = new ConcurrentHashMap<>();
+    private static final String writeQueueFullTemplate = "Queue: %s is full, retry later";
+
+    public WriteQueueFullException(String queue) {
+        super(String.format(writeQueueFullTemplate, queue));
+    }
+
+    public static WriteQueueFullException of(String queue) {
+        return shared(sharedInstances, queue, () -> new WriteQueueFullException(queue));
+    }
+}
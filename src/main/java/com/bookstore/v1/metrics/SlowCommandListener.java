@@ -0,0 +1,74 @@
+package com.bookstore.v1.metrics;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.BsonValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// counts every mongo command slower than the threshold and logs a sample of them; the command latency
+// timers themselves come from micrometer's MongoMetricsCommandListener
+@Component
+public class SlowCommandListener implements CommandListener {
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Value("${bookstore.mongodb.slow-command.threshold:100ms}")
+    private Duration threshold;
+    @Value("${bookstore.mongodb.slow-command.sample-rate:0.1}")
+    private double sampleRate;
+
+    // the command document is only readable while the started event is handled, keep what the log needs
+    private final Map<Integer, String> collections = new ConcurrentHashMap<>();
+
+    Logger logger = LoggerFactory.getLogger(SlowCommandListener.class);
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        BsonValue collection = event.getCommand().get(event.getCommandName());
+        if (collection != null && collection.isString()) {
+            collections.put(event.getRequestId(), collection.asString().getValue());
+        }
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        record(event.getRequestId(), event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS), "SUCCESS");
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        record(event.getRequestId(), event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS), "FAILED");
+    }
+
+    private void record(int requestId, String commandName, long elapsedNanos, String status) {
+        String collection = collections.remove(requestId);
+        if (elapsedNanos < threshold.toNanos()) {
+            return;
+        }
+        Counter
+                .builder("bookstore.mongodb.slow.commands")
+                .description("Number of mongo commands slower than the slow command threshold")
+                .tag("command", commandName)
+                .tag("collection", collection != null ? collection : "unknown")
+                .tag("status", status)
+                .register(meterRegistry)
+                .increment();
+        if (ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            logger.warn("Slow mongo command: " + commandName + " on collection: " + collection + " took " +
+                        TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + "ms, status: " + status);
+        }
+    }
+}
@@ -2,23 +2,88 @@ package com.bookstore.v1.services;
 
 import com.bookstore.v1.data.*;
 import com.bookstore.v1.dto.BookDTO;
+import com.bookstore.v1.dto.BookPageDTO;
+import com.bookstore.v1.dto.BookSearchDTO;
+import com.bookstore.v1.dto.BookSuggestionDTO;
+import com.bookstore.v1.dto.BulkReportDTO;
+import com.bookstore.v1.dto.FieldSelection;
+import com.bookstore.v1.dto.RatingSummaryDTO;
 import com.bookstore.v1.exception.DuplicateObjectException;
 import com.bookstore.v1.exception.EmptyFieldException;
 import com.bookstore.v1.exception.EntityNotFoundException;
+import com.bookstore.v1.exception.InvalidCursorException;
 import com.bookstore.v1.exception.InvalidDoubleRange;
 import com.bookstore.v1.validations.BookValidations;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Component
 public class BookService {
+    public static final int MAX_PAGE_LIMIT = 500;
+    private static final String EMPTY_RECORD = "empty record";
 
     @Autowired
     private BookRepository bookRepository;
+    @Autowired
+    private RatingSummaryService ratingSummaryService;
+    @Autowired
+    private BookSuggestionIndex bookSuggestionIndex;
+    @Autowired
+    private SnapshotService snapshotService;
+    @Autowired
+    private RequestCoalescer requestCoalescer;
+    @Autowired
+    private ETagService eTagService;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Value("${bookstore.books.bulk.batch-size:1000}")
+    private int bulkBatchSize;
+
+    Logger logger = LoggerFactory.getLogger(BookService.class);
+
+    // a batch size of 0 would send every record with a bulk write of its own
+    @PostConstruct
+    public void checkBulkBatchSize() {
+        if (bulkBatchSize <= 0) {
+            throw new IllegalStateException("bookstore.books.bulk.batch-size must be positive, was: " + bulkBatchSize);
+        }
+    }
 
     public BookDTO addBook(BookDTO bookDTO) throws EmptyFieldException{
 
@@ -27,26 +92,114 @@ public class BookService {
         Book book = bookDTO.toBook(true);
 
         bookRepository.save(book);
+        bookSuggestionIndex.index(book);
 
         return new BookDTO(book);
     }
 
+    // reads a json array or ndjson body one record at a time, so the whole catalog is never held in memory
+    public BulkReportDTO addBooks(InputStream body) throws IOException {
+        BulkReportDTO report = new BulkReportDTO();
+        List<Book> batch = new ArrayList<>(bulkBatchSize);
+        List<Long> batchIndexes = new ArrayList<>(bulkBatchSize);
+        long index = 0;
+
+        try (MappingIterator<BookDTO> records = objectMapper.readerFor(BookDTO.class).readValues(body)) {
+            while (records.hasNextValue()) {
+                // a json null between the records either binds to null or fails to bind, both are reported alike
+                boolean emptyRecord = records.getParser().hasToken(JsonToken.VALUE_NULL);
+                try {
+                    BookDTO bookDTO = records.nextValue();
+                    if (bookDTO == null) {
+                        report.addError(index, EMPTY_RECORD);
+                        index++;
+                        continue;
+                    }
+                    BookValidations.validateBookDTO(bookDTO, false);
+                    Book book = bookDTO.toBook(true);
+                    // ids are assigned up front so a failed insert can be reported against its record
+                    book.setId(new ObjectId().toHexString());
+                    // bulk inserts skip the version initialization of the repositories
+                    book.setVersion(0L);
+                    batch.add(book);
+                    batchIndexes.add(index);
+                } catch (JsonParseException e) {
+                    // malformed json cannot be skipped reliably, everything read so far is still inserted
+                    report.addError(index, e.getOriginalMessage());
+                    index++;
+                    break;
+                } catch (JsonProcessingException e) {
+                    report.addError(index, emptyRecord ? EMPTY_RECORD : e.getOriginalMessage());
+                } catch (EmptyFieldException e) {
+                    report.addError(index, e.getMessage());
+                }
+                index++;
+                if (batch.size() >= bulkBatchSize) {
+                    insertBatch(batch, batchIndexes, report);
+                }
+            }
+        } catch (JsonParseException e) {
+            report.addError(index, e.getOriginalMessage());
+            index++;
+        }
+        insertBatch(batch, batchIndexes, report);
+        report.setReceived(index);
+
+        logger.info("Bulk book import received: " + report.getReceived() + " inserted: " + report.getInserted() +
+                    " failed: " + report.getFailed());
+
+        return report;
+    }
+
+    // unordered, so one rejected document does not stop the rest of the batch
+    private void insertBatch(List<Book> batch, List<Long> batchIndexes, BulkReportDTO report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Book.class).insert(batch).execute();
+            report.setInserted(report.getInserted() + batch.size());
+            batch.forEach(bookSuggestionIndex::index);
+        } catch (BulkOperationException e) {
+            report.setInserted(report.getInserted() + e.getResult().getInsertedCount());
+            Set<Integer> failed = new HashSet<>();
+            for (BulkWriteError error : e.getErrors()) {
+                failed.add(error.getIndex());
+                report.addError(batchIndexes.get(error.getIndex()), error.getMessage());
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                if (!failed.contains(i)) {
+                    bookSuggestionIndex.index(batch.get(i));
+                }
+            }
+        }
+        batch.clear();
+        batchIndexes.clear();
+    }
+
     public BookDTO updateBook(BookDTO bookUpdateDTO) throws EmptyFieldException, EntityNotFoundException {
 
         BookValidations.validateBookDTO(bookUpdateDTO, true);
 
         Optional<Book> oldBookOpt = bookRepository.findById(bookUpdateDTO.getId());
         if (oldBookOpt.isEmpty()) {
-            throw new EntityNotFoundException("book");
+            throw EntityNotFoundException.of("book");
         }
 
-        Book newBook = oldBookOpt.get();
-        newBook.setTitle(bookUpdateDTO.getTitle());
-        newBook.setAuthor(bookUpdateDTO.getAuthor());
-        newBook.setPublisher(bookUpdateDTO.getPublisher());
-        newBook.setIsbn(bookUpdateDTO.getIsbn());
-        newBook.setPublishedDate(bookUpdateDTO.getPublishedDate());
-        bookRepository.save(newBook);
+        // build a new entity instead of modifying the one shared through the books cache
+        Book newBook = new Book(oldBookOpt.get().getId(), bookUpdateDTO.getTitle(), bookUpdateDTO.getAuthor(),
+                bookUpdateDTO.getPublisher(), bookUpdateDTO.getIsbn(), bookUpdateDTO.getPublishedDate());
+        newBook.setReviews(oldBookOpt.get().getReviews());
+        newBook.setVersion(oldBookOpt.get().getVersion());
+        try {
+            bookRepository.save(newBook);
+        } catch (OptimisticLockingFailureException e) {
+            // the cached book is older than the stored one, the next attempt reads the stored one
+            bookRepository.evict(newBook.getId());
+            throw e;
+        }
+        bookSuggestionIndex.index(newBook);
+        snapshotService.refreshBook(newBook);
 
         return new BookDTO(newBook);
     }
@@ -54,19 +207,48 @@ public class BookService {
     public void deleteBookById(String bookId) throws EntityNotFoundException {
         Optional<Book> bookToDelete = bookRepository.findById(bookId);
         if (bookToDelete.isEmpty()) {
-            throw new EntityNotFoundException("book");
+            throw EntityNotFoundException.of("book");
+        }
+        try {
+            // removes by id and version, a cached book older than the stored one removes nothing
+            bookRepository.delete(bookToDelete.get());
+        } catch (OptimisticLockingFailureException e) {
+            bookRepository.evict(bookId);
+            throw e;
         }
-        bookRepository.delete(bookToDelete.get());
+        ratingSummaryService.deleteSummary(bookId);
+        bookSuggestionIndex.remove(bookId);
     }
 
     public BookDTO getBookById(String bookId) throws EntityNotFoundException {
+        return getBookById(bookId, false);
+    }
+
+    public BookDTO getBookById(String bookId, Boolean withRating) throws EntityNotFoundException {
+        return getTaggedBookById(bookId, withRating, FieldSelection.forBooks(null)).getBody();
+    }
+
+    // the entity tag is taken from the same book and rating summary as the body
+    public Tagged<BookDTO> getTaggedBookById(String bookId, Boolean withRating, FieldSelection selection) throws
+            EntityNotFoundException {
+        return requestCoalescer.execute("getBookById", bookId + ':' + withRating + ':' + selection,
+                () -> loadBookById(bookId, withRating, selection));
+    }
+
+    private Tagged<BookDTO> loadBookById(String bookId, Boolean withRating, FieldSelection selection) throws
+            EntityNotFoundException {
         Optional<Book> book = bookRepository.findById(bookId);
         if (book.isEmpty()) {
-            throw new EntityNotFoundException("book");
+            throw EntityNotFoundException.of("book");
+        }
+        BookDTO bookDTO = new BookDTO(book.get());
+        if (withRating) {
+            bookDTO.setRating(ratingSummaryService.getRatingSummary(bookId));
         }
-        return new BookDTO(book.get());
+        return new Tagged<>(bookDTO, eTagService.getBookETag(book.get(), bookDTO.getRating(), selection));
     }
 
+    @ListRead
     public List<BookDTO> getBooks() {
         return bookRepository
                 .findAll()
@@ -75,4 +257,131 @@ public class BookService {
                 .collect(Collectors.toList());
     }
 
+    // only the selected fields are read from mongo, the others stay null in the dtos
+    @ListRead
+    public List<BookDTO> getBooks(FieldSelection selection) {
+        if (selection.isAll()) {
+            return getBooks();
+        }
+        return withRatings(mongoTemplate
+                .find(project(new Query(), selection), Book.class)
+                .stream()
+                .map(book -> new BookDTO(book))
+                .collect(Collectors.toList()), selection);
+    }
+
+    @ListRead
+    public Stream<BookDTO> streamBooks() {
+        return bookRepository
+                .streamAll()
+                .map(book -> new BookDTO(book));
+    }
+
+    @ListRead
+    public BookPageDTO getBooksPage(String cursor, Integer limit) throws InvalidDoubleRange, InvalidCursorException {
+        return getBooksPage(cursor, limit, FieldSelection.forBooks(null));
+    }
+
+    @ListRead
+    public BookPageDTO getBooksPage(String cursor, Integer limit, FieldSelection selection) throws InvalidDoubleRange,
+            InvalidCursorException {
+        if (limit == null || limit < 1 || limit > MAX_PAGE_LIMIT) {
+            throw InvalidDoubleRange.of("limit", 1.0, (double) MAX_PAGE_LIMIT);
+        }
+
+        // fetch one extra book to find out whether there is a next page without a count query
+        PageRequest pageRequest = PageRequest.of(0, limit + 1);
+        List<Book> books;
+        if (!selection.isAll()) {
+            Query query = new Query().with(Sort.by(Sort.Direction.ASC, "id")).limit(limit + 1);
+            if (cursor != null && !cursor.isEmpty()) {
+                query.addCriteria(Criteria.where("id").gt(decodeCursor(cursor)));
+            }
+            books = mongoTemplate.find(project(query, selection), Book.class);
+        } else if (cursor == null || cursor.isEmpty()) {
+            books = bookRepository.findAllByOrderByIdAsc(pageRequest);
+        } else {
+            books = bookRepository.findAllByIdGreaterThanOrderByIdAsc(decodeCursor(cursor), pageRequest);
+        }
+
+        String nextCursor = null;
+        if (books.size() > limit) {
+            books = books.subList(0, limit);
+            nextCursor = encodeCursor(books.get(limit - 1).getId());
+        }
+
+        List<BookDTO> bookDTOs = books.stream().map(book -> new BookDTO(book)).collect(Collectors.toList());
+        return new BookPageDTO(withRatings(bookDTOs, selection), nextCursor);
+    }
+
+    @ListRead
+    public BookSearchDTO searchBooks(String query, Integer page, Integer size) throws EmptyFieldException,
+            InvalidDoubleRange {
+        if (query == null || query.isBlank()) {
+            throw EmptyFieldException.of("query");
+        }
+        if (page == null || page < 0) {
+            throw InvalidDoubleRange.of("page", 0.0, (double) Integer.MAX_VALUE);
+        }
+        if (size == null || size < 1 || size > MAX_PAGE_LIMIT) {
+            throw InvalidDoubleRange.of("size", 1.0, (double) MAX_PAGE_LIMIT);
+        }
+
+        List<Book> books = mongoTemplate.find(textSearch(query, page, size), Book.class);
+
+        boolean hasNext = books.size() > size;
+        if (hasNext) {
+            books = books.subList(0, size);
+        }
+        return new BookSearchDTO(books.stream().map(book -> new BookDTO(book)).collect(Collectors.toList()), page,
+                size, hasNext);
+    }
+
+    // any of the terms matches, results are ranked by the weighted text score; one extra book is fetched to tell
+    // whether there is a next page
+    static Query textSearch(String query, Integer page, Integer size) {
+        return TextQuery
+                .queryText(TextCriteria.forDefaultLanguage().matching(query))
+                .sortByScore()
+                .skip((long) page * size)
+                .limit(size + 1);
+    }
+
+    public List<BookSuggestionDTO> suggestBooks(String prefix, Integer limit) throws InvalidDoubleRange {
+        if (limit == null || limit < 1 || limit > BookSuggestionIndex.MAX_SUGGESTIONS) {
+            throw InvalidDoubleRange.of("limit", 1.0, (double) BookSuggestionIndex.MAX_SUGGESTIONS);
+        }
+        return bookSuggestionIndex.suggest(prefix, limit);
+    }
+
+    // rating is no book field, it comes from the rating summaries when it was selected
+    private List<BookDTO> withRatings(List<BookDTO> bookDTOs, FieldSelection selection) {
+        if (!selection.fields().contains("rating")) {
+            return bookDTOs;
+        }
+        Map<String, RatingSummaryDTO> ratings = ratingSummaryService.getRatingSummaries(
+                bookDTOs.stream().map(BookDTO::getId).collect(Collectors.toList()));
+        bookDTOs.forEach(bookDTO -> bookDTO.setRating(ratings.get(bookDTO.getId())));
+        return bookDTOs;
+    }
+
+    // the id is always read, the page cursor and the dtos depend on it
+    static Query project(Query query, FieldSelection selection) {
+        query.fields().include("id");
+        selection.fields().stream().filter(field -> !field.equals("rating")).forEach(query.fields()::include);
+        return query;
+    }
+
+    static String encodeCursor(String bookId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bookId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String decodeCursor(String cursor) throws InvalidCursorException {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
 }
\ No newline at end of file
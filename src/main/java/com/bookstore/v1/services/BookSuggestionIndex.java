@@ -0,0 +1,195 @@
+package com.bookstore.v1.services;
+
+import com.bookstore.v1.data.Book;
+import com.bookstore.v1.dto.BookSuggestionDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+// in-memory prefix index over book titles and authors: every word start of a normalized title or author is a
+// key of a sorted map, so a prefix lookup is a range scan over the keys starting with the normalized prefix
+@Component
+public class BookSuggestionIndex implements ApplicationRunner {
+    public static final int MAX_SUGGESTIONS = 50;
+    private static final char KEY_SEPARATOR = '\u0000';
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    // books written through other instances show up after the next rebuild
+    @Value("${bookstore.books.suggestions.rebuild-interval:10m}")
+    private Duration rebuildInterval;
+
+    private volatile Entries entries = new Entries();
+    // changes made while a rebuild streams the books, replayed onto the rebuilt entries before they replace the
+    // current ones. a null book stands for a removal, the whole map is null while no rebuild runs
+    private Map<String, Book> changesDuringRebuild;
+    private final Object changeLock = new Object();
+    private ScheduledExecutorService rebuildExecutor;
+
+    Logger logger = LoggerFactory.getLogger(BookSuggestionIndex.class);
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuild();
+        if (!rebuildInterval.isZero()) {
+            rebuildExecutor = Executors.newSingleThreadScheduledExecutor();
+            rebuildExecutor.scheduleWithFixedDelay(this::rebuild, rebuildInterval.toMillis(),
+                    rebuildInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (rebuildExecutor != null) {
+            rebuildExecutor.shutdownNow();
+        }
+    }
+
+    public List<BookSuggestionDTO> suggest(String prefix, int limit) {
+        String normalizedPrefix = normalize(prefix);
+        if (normalizedPrefix.isEmpty()) {
+            return List.of();
+        }
+        ConcurrentNavigableMap<String, BookSuggestionDTO> matches = entries.suggestions
+                .subMap(normalizedPrefix, true, normalizedPrefix + Character.MAX_VALUE, false);
+
+        // the same author or title can be indexed for several books, suggest it once
+        Map<String, BookSuggestionDTO> suggestions = new LinkedHashMap<>();
+        for (BookSuggestionDTO suggestion : matches.values()) {
+            suggestions.putIfAbsent(suggestion.getField() + KEY_SEPARATOR + suggestion.getText(), suggestion);
+            if (suggestions.size() >= limit) {
+                break;
+            }
+        }
+        return new ArrayList<>(suggestions.values());
+    }
+
+    public void index(Book book) {
+        synchronized (changeLock) {
+            entries.index(book);
+            if (changesDuringRebuild != null && book.getId() != null) {
+                changesDuringRebuild.put(book.getId(), book);
+            }
+        }
+    }
+
+    public void remove(String bookId) {
+        synchronized (changeLock) {
+            entries.remove(bookId);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.put(bookId, null);
+            }
+        }
+    }
+
+    void rebuild() {
+        synchronized (changeLock) {
+            changesDuringRebuild = new LinkedHashMap<>();
+        }
+        try {
+            Query query = new Query();
+            query.fields().include("title").include("author");
+            Entries rebuilt = new Entries();
+            try (CloseableIterator<Book> books = mongoTemplate.stream(query, Book.class)) {
+                books.forEachRemaining(rebuilt::index);
+            }
+            synchronized (changeLock) {
+                changesDuringRebuild.forEach((bookId, book) -> {
+                    if (book == null) {
+                        rebuilt.remove(bookId);
+                    } else {
+                        rebuilt.index(book);
+                    }
+                });
+                entries = rebuilt;
+            }
+
+            logger.info("Book suggestion index built with " + rebuilt.keysByBook.size() + " books");
+        } catch (RuntimeException e) {
+            // keep serving the current index, the next rebuild tries again
+            logger.error("Book suggestion index rebuild failed", e);
+        } finally {
+            synchronized (changeLock) {
+                changesDuringRebuild = null;
+            }
+        }
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return WHITESPACE
+                .matcher(DIACRITICS.matcher(decomposed).replaceAll(""))
+                .replaceAll(" ")
+                .trim()
+                .toLowerCase(Locale.ROOT);
+    }
+
+    private static class Entries {
+        // normalized word start + separator + field + separator + book id -> suggestion
+        private final ConcurrentSkipListMap<String, BookSuggestionDTO> suggestions = new ConcurrentSkipListMap<>();
+        private final ConcurrentHashMap<String, List<String>> keysByBook = new ConcurrentHashMap<>();
+
+        void index(Book book) {
+            if (book.getId() == null) {
+                return;
+            }
+            // compute serializes concurrent changes of the same book
+            keysByBook.compute(book.getId(), (bookId, oldKeys) -> {
+                if (oldKeys != null) {
+                    oldKeys.forEach(suggestions::remove);
+                }
+                List<String> keys = new ArrayList<>();
+                addKeys(keys, book.getTitle(), "title", bookId);
+                addKeys(keys, book.getAuthor(), "author", bookId);
+                return keys;
+            });
+        }
+
+        void remove(String bookId) {
+            keysByBook.computeIfPresent(bookId, (id, oldKeys) -> {
+                oldKeys.forEach(suggestions::remove);
+                return null;
+            });
+        }
+
+        private void addKeys(List<String> keys, String text, String field, String bookId) {
+            String normalized = normalize(text);
+            if (normalized.isEmpty()) {
+                return;
+            }
+            BookSuggestionDTO suggestion = new BookSuggestionDTO(text.trim(), field, bookId);
+            int wordStart = 0;
+            while (wordStart >= 0) {
+                String key = normalized.substring(wordStart) + KEY_SEPARATOR + field + KEY_SEPARATOR + bookId;
+                suggestions.put(key, suggestion);
+                keys.add(key);
+                int space = normalized.indexOf(' ', wordStart);
+                wordStart = space < 0 ? -1 : space + 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.bookstore.v1.services;
+
+import com.bookstore.v1.data.Book;
+import com.bookstore.v1.data.Review;
+import com.bookstore.v1.data.Wishlist;
+import com.bookstore.v1.dto.FieldSelection;
+import com.bookstore.v1.dto.RatingSummaryDTO;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+
+// entity tags of the polled read endpoints. they are derived from the ids and versions of the documents a
+// response is built from, by the same load that builds it, so a tag always matches its body and costs no query
+// of its own. a client holding the current tag gets its 304 before the body is serialized. changes of a book or
+// user increase the versions of the reviews and wishlists showing it, see SnapshotService
+@Component
+public class ETagService {
+    public String getBookETag(Book book, RatingSummaryDTO rating, FieldSelection selection) {
+        String state = book.getVersion() + ":" + (rating != null);
+        if (rating != null) {
+            state += ":" + rating.getCount() + ":" + rating.getAverage() + ":" + rating.getMin() + ":" +
+                     rating.getMax() + ":" + rating.getHistogram();
+        }
+        return toETag("book:" + book.getId(), state, selection);
+    }
+
+    public String getReviewsETag(String resource, List<Review> reviews, FieldSelection selection) {
+        return toETag(resource, listState(reviews, Review::getId, Review::getVersion), selection);
+    }
+
+    public String getWishlistsETag(String resource, List<Wishlist> wishlists, FieldSelection selection) {
+        return toETag(resource, listState(wishlists, Wishlist::getId, Wishlist::getVersion), selection);
+    }
+
+    // every id with its version, any insert, update or delete among the listed documents changes it
+    private static <T> String listState(List<T> documents, Function<T, String> id, Function<T, Long> version) {
+        StringBuilder state = new StringBuilder().append(documents.size());
+        for (T document : documents) {
+            state.append(',').append(id.apply(document)).append(':').append(version.apply(document));
+        }
+        return state.toString();
+    }
+
+    // weak since the same state is sent with different encodings
+    private static String toETag(String resource, String state, FieldSelection selection) {
+        String tag = resource + '|' + state + '|' + selection;
+        return "W/\"" + DigestUtils.md5DigestAsHex(tag.getBytes(StandardCharsets.UTF_8)) + '"';
+    }
+}
@@ -0,0 +1,250 @@
+package com.bookstore.v1.services;
+
+import com.bookstore.v1.data.*;
+import com.bookstore.v1.dto.RatingSummaryDTO;
+import com.bookstore.v1.exception.EntityNotFoundException;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Component
+public class RatingSummaryService {
+    // half-star buckets covering ratings from 0.0 to 5.0
+    public static final int HISTOGRAM_BUCKETS = 11;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private BookRatingSummaryRepository bookRatingSummaryRepository;
+    @Autowired
+    private BookRepository bookRepository;
+
+    Logger logger = LoggerFactory.getLogger(RatingSummaryService.class);
+
+    public RatingSummaryDTO getRatingSummary(String bookId) throws EntityNotFoundException {
+        Optional<BookRatingSummary> summary = bookRatingSummaryRepository.findById(bookId);
+        if (summary.isPresent()) {
+            return new RatingSummaryDTO(summary.get());
+        }
+        if (!bookRepository.existsById(bookId)) {
+            logger.warn("Book not found with id: " + bookId);
+            throw EntityNotFoundException.of("book");
+        }
+        return new RatingSummaryDTO(rebuildSummary(bookId));
+    }
+
+    // one query for the summaries of a whole list of books, missing ones are built in one go
+    public Map<String, RatingSummaryDTO> getRatingSummaries(Collection<String> bookIds) {
+        Map<String, RatingSummaryDTO> summaries = new HashMap<>();
+        if (bookIds.isEmpty()) {
+            return summaries;
+        }
+        mongoTemplate
+                .find(Query.query(Criteria.where("bookId").in(bookIds)), BookRatingSummary.class)
+                .forEach(summary -> summaries.put(summary.getBookId(), new RatingSummaryDTO(summary)));
+        Set<String> missing = new HashSet<>(bookIds);
+        missing.removeAll(summaries.keySet());
+        if (!missing.isEmpty()) {
+            rebuildSummaries(missing).forEach(summary ->
+                    summaries.put(summary.getBookId(), new RatingSummaryDTO(summary)));
+        }
+        return summaries;
+    }
+
+    public void recordAdded(String bookId, Double rating) {
+        Update update = new Update()
+                .inc("count", 1)
+                .inc("sum", rating)
+                .inc(histogramField(rating), 1)
+                .min("min", rating)
+                .max("max", rating);
+        UpdateResult result = mongoTemplate.updateFirst(settled(bookId), update, BookRatingSummary.class);
+        if (result.getMatchedCount() == 0) {
+            // books reviewed before summaries existed get their summary built from the reviews once. a rebuild
+            // that is running may have read the reviews before this one was added, a new rebuild takes over
+            rebuildSummary(bookId);
+        }
+    }
+
+    // one bulk write for the books of a whole batch of new reviews instead of one update per review
+    public void recordAddedAll(Map<String, List<Double>> ratingsByBook) {
+        if (ratingsByBook.isEmpty()) {
+            return;
+        }
+        Query existing = Query.query(Criteria.where("bookId").in(ratingsByBook.keySet()).and("rebuild").exists(false));
+        existing.fields().include("bookId");
+        Set<String> summarized = mongoTemplate
+                .find(existing, BookRatingSummary.class)
+                .stream()
+                .map(BookRatingSummary::getBookId)
+                .collect(Collectors.toSet());
+
+        BulkOperations updates = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, BookRatingSummary.class);
+        Set<String> missing = new HashSet<>();
+        ratingsByBook.forEach((bookId, ratings) -> {
+            if (!summarized.contains(bookId)) {
+                missing.add(bookId);
+                return;
+            }
+            Map<String, Integer> buckets = new HashMap<>();
+            ratings.forEach(rating -> buckets.merge(histogramField(rating), 1, Integer::sum));
+            Update update = new Update()
+                    .inc("count", ratings.size())
+                    .inc("sum", ratings.stream().mapToDouble(Double::doubleValue).sum())
+                    .min("min", Collections.min(ratings))
+                    .max("max", Collections.max(ratings));
+            buckets.forEach(update::inc);
+            updates.updateOne(settled(bookId), update);
+        });
+        if (!summarized.isEmpty() && updates.execute().getMatchedCount() < summarized.size()) {
+            // some summaries went into a rebuild after they were looked up and skipped their increments
+            summarized.forEach(this::rebuildSummary);
+        }
+        if (!missing.isEmpty()) {
+            rebuildSummaries(missing);
+        }
+    }
+
+    public void recordUpdated(String bookId, Double oldRating, Double newRating) {
+        if (Objects.equals(oldRating, newRating)) {
+            return;
+        }
+        Update update = new Update()
+                .inc("sum", newRating - oldRating)
+                .min("min", newRating)
+                .max("max", newRating);
+        if (histogramBucket(oldRating) != histogramBucket(newRating)) {
+            update.inc(histogramField(oldRating), -1).inc(histogramField(newRating), 1);
+        }
+        BookRatingSummary previous = mongoTemplate.findAndModify(settled(bookId), update, BookRatingSummary.class);
+        if (previous == null || isBoundary(previous, oldRating)) {
+            rebuildSummary(bookId);
+        }
+    }
+
+    public void recordRemoved(String bookId, Double rating) {
+        Update update = new Update()
+                .inc("count", -1)
+                .inc("sum", -rating)
+                .inc(histogramField(rating), -1);
+        BookRatingSummary previous = mongoTemplate.findAndModify(settled(bookId), update, BookRatingSummary.class);
+        if (previous == null || isBoundary(previous, rating)) {
+            rebuildSummary(bookId);
+        }
+    }
+
+    public void deleteSummary(String bookId) {
+        bookRatingSummaryRepository.deleteById(bookId);
+    }
+
+    // recomputes the summary from the ratings of the book, only needed for missing summaries or when the
+    // current min or max rating went away since $min/$max cannot be reverted incrementally. the summary is marked
+    // with a token before the reviews are read, increments skip a marked summary and start a rebuild of their own
+    // instead, so a review is never both read here and incremented on top of the result. the result only
+    // replaces the summary while it still holds this token, a later rebuild that took over read every review
+    // this one did
+    BookRatingSummary rebuildSummary(String bookId) {
+        String token = new ObjectId().toHexString();
+        mongoTemplate.upsert(byBook(bookId), new Update().set("rebuild", token), BookRatingSummary.class);
+
+        BookRatingSummary summary = new BookRatingSummary(bookId);
+        Book book = new Book();
+        book.setId(bookId);
+        Query query = Query.query(Criteria.where("book").is(book));
+        query.fields().include("rating");
+        for (Review review : mongoTemplate.find(query, Review.class)) {
+            accumulate(summary, review.getRating());
+        }
+
+        if (mongoTemplate.findAndReplace(byToken(bookId, token), summary) != null) {
+            logger.info("Rating summary rebuilt for book: " + bookId + " from " + summary.getCount() + " reviews");
+        } else {
+            logger.info("Rating summary rebuild for book: " + bookId + " was taken over by a later one");
+        }
+        return summary;
+    }
+
+    // same as rebuildSummary for many books without a summary, with one bulk write to mark them, one query for
+    // their reviews and one bulk write for the results
+    List<BookRatingSummary> rebuildSummaries(Collection<String> bookIds) {
+        String token = new ObjectId().toHexString();
+        Map<String, BookRatingSummary> summaries = new LinkedHashMap<>();
+        List<Book> books = new ArrayList<>();
+        BulkOperations marks = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, BookRatingSummary.class);
+        for (String bookId : bookIds) {
+            summaries.put(bookId, new BookRatingSummary(bookId));
+            Book book = new Book();
+            book.setId(bookId);
+            books.add(book);
+            marks.upsert(byBook(bookId), new Update().set("rebuild", token));
+        }
+        marks.execute();
+
+        Query query = Query.query(Criteria.where("book").in(books));
+        query.fields().include("book").include("rating");
+        for (Review review : mongoTemplate.find(query, Review.class)) {
+            BookRatingSummary summary = summaries.get(LazyReferences.idOf(review.getBook(), Book::getId));
+            if (summary != null) {
+                accumulate(summary, review.getRating());
+            }
+        }
+
+        BulkOperations replacements = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED,
+                BookRatingSummary.class);
+        summaries.values().forEach(summary -> replacements.replaceOne(byToken(summary.getBookId(), token), summary));
+        replacements.execute();
+
+        logger.info("Rating summaries rebuilt for " + summaries.size() + " books");
+
+        return new ArrayList<>(summaries.values());
+    }
+
+    static BookRatingSummary accumulate(BookRatingSummary summary, Double rating) {
+        if (rating == null) {
+            return summary;
+        }
+        summary.setCount(summary.getCount() + 1);
+        summary.setSum(summary.getSum() + rating);
+        summary.setMin(summary.getMin() == null ? rating : Math.min(summary.getMin(), rating));
+        summary.setMax(summary.getMax() == null ? rating : Math.max(summary.getMax(), rating));
+        summary.getHistogram().merge(String.valueOf(histogramBucket(rating)), 1L, Long::sum);
+        return summary;
+    }
+
+    static int histogramBucket(Double rating) {
+        return (int) Math.max(0, Math.min(HISTOGRAM_BUCKETS - 1, Math.floor(rating * 2)));
+    }
+
+    private static String histogramField(Double rating) {
+        return "histogram." + histogramBucket(rating);
+    }
+
+    private static boolean isBoundary(BookRatingSummary summary, Double rating) {
+        return summary.getMin() == null || summary.getMax() == null ||
+               rating <= summary.getMin() || rating >= summary.getMax();
+    }
+
+    private static Query byBook(String bookId) {
+        return Query.query(Criteria.where("bookId").is(bookId));
+    }
+
+    // the summary of the book unless a rebuild is computing it
+    private static Query settled(String bookId) {
+        return Query.query(Criteria.where("bookId").is(bookId).and("rebuild").exists(false));
+    }
+
+    private static Query byToken(String bookId, String token) {
+        return Query.query(Criteria.where("bookId").is(bookId).and("rebuild").is(token));
+    }
+}
@@ -0,0 +1,137 @@
+package com.bookstore.v1.services;
+
+import com.bookstore.v1.data.BookRatingSummary;
+import com.bookstore.v1.data.reactive.DbRefs;
+import com.bookstore.v1.data.reactive.ReactiveBook;
+import com.bookstore.v1.data.reactive.ReactiveBookRepository;
+import com.bookstore.v1.data.reactive.ReactiveReviewRepository;
+import com.bookstore.v1.dto.BookDTO;
+import com.bookstore.v1.dto.BookPageDTO;
+import com.bookstore.v1.dto.BookSearchDTO;
+import com.bookstore.v1.dto.BookSuggestionDTO;
+import com.bookstore.v1.dto.RatingSummaryDTO;
+import com.bookstore.v1.exception.EmptyFieldException;
+import com.bookstore.v1.exception.EntityNotFoundException;
+import com.bookstore.v1.exception.InvalidDoubleRange;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.stream.Collectors;
+
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveBookService {
+    @Autowired
+    private ReactiveBookRepository reactiveBookRepository;
+    @Autowired
+    private ReactiveReviewRepository reactiveReviewRepository;
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+    @Autowired
+    private BookSuggestionIndex bookSuggestionIndex;
+
+    public Mono<BookDTO> getBookById(String bookId, Boolean withRating) {
+        Mono<BookDTO> book = reactiveBookRepository
+                .findById(bookId)
+                .map(ReactiveBookService::toBookDTO)
+                .switchIfEmpty(Mono.error(() -> EntityNotFoundException.of("book")));
+        if (!withRating) {
+            return book;
+        }
+        return book.flatMap(bookDTO -> getRatingSummary(bookId).map(rating -> {
+            bookDTO.setRating(rating);
+            return bookDTO;
+        }));
+    }
+
+    public Flux<BookDTO> getBooks() {
+        return reactiveBookRepository
+                .findAll()
+                .map(ReactiveBookService::toBookDTO);
+    }
+
+    public Mono<BookPageDTO> getBooksPage(String cursor, Integer limit) {
+        if (limit == null || limit < 1 || limit > BookService.MAX_PAGE_LIMIT) {
+            return Mono.error(InvalidDoubleRange.of("limit", 1.0, (double) BookService.MAX_PAGE_LIMIT));
+        }
+
+        // same paging as BookService.getBooksPage, one extra book tells whether there is a next page
+        PageRequest pageRequest = PageRequest.of(0, limit + 1);
+        Flux<ReactiveBook> books = cursor == null || cursor.isEmpty()
+                ? reactiveBookRepository.findAllByOrderByIdAsc(pageRequest)
+                : Mono
+                .fromCallable(() -> BookService.decodeCursor(cursor))
+                .flatMapMany(lastId -> reactiveBookRepository.findAllByIdGreaterThanOrderByIdAsc(lastId,
+                        pageRequest));
+
+        return books
+                .collectList()
+                .map(page -> {
+                    String nextCursor = null;
+                    if (page.size() > limit) {
+                        page = page.subList(0, limit);
+                        nextCursor = BookService.encodeCursor(page.get(limit - 1).getId());
+                    }
+                    return new BookPageDTO(
+                            page.stream().map(ReactiveBookService::toBookDTO).collect(Collectors.toList()),
+                            nextCursor);
+                });
+    }
+
+    public Mono<BookSearchDTO> searchBooks(String query, Integer page, Integer size) {
+        if (query == null || query.isBlank()) {
+            return Mono.error(EmptyFieldException.of("query"));
+        }
+        if (page == null || page < 0) {
+            return Mono.error(InvalidDoubleRange.of("page", 0.0, (double) Integer.MAX_VALUE));
+        }
+        if (size == null || size < 1 || size > BookService.MAX_PAGE_LIMIT) {
+            return Mono.error(InvalidDoubleRange.of("size", 1.0, (double) BookService.MAX_PAGE_LIMIT));
+        }
+        return reactiveMongoTemplate
+                .find(BookService.textSearch(query, page, size), ReactiveBook.class)
+                .collectList()
+                .map(books -> {
+                    boolean hasNext = books.size() > size;
+                    return new BookSearchDTO(books
+                            .stream()
+                            .limit(size)
+                            .map(ReactiveBookService::toBookDTO)
+                            .collect(Collectors.toList()), page, size, hasNext);
+                });
+    }
+
+    // the index lives in memory, looking it up on the event loop does not block
+    public Flux<BookSuggestionDTO> suggestBooks(String prefix, Integer limit) {
+        if (limit == null || limit < 1 || limit > BookSuggestionIndex.MAX_SUGGESTIONS) {
+            return Flux.error(InvalidDoubleRange.of("limit", 1.0, (double) BookSuggestionIndex.MAX_SUGGESTIONS));
+        }
+        return Flux.fromIterable(bookSuggestionIndex.suggest(prefix, limit));
+    }
+
+    // the reactive mode does not write, a book without a stored summary gets one computed from its reviews
+    public Mono<RatingSummaryDTO> getRatingSummary(String bookId) {
+        return reactiveMongoTemplate
+                .findById(bookId, BookRatingSummary.class)
+                .switchIfEmpty(reactiveBookRepository
+                        .existsById(bookId)
+                        .flatMap(exists -> exists
+                                ? reactiveReviewRepository
+                                .findAllByBook(DbRefs.of("books", bookId))
+                                .reduce(new BookRatingSummary(bookId),
+                                        (summary, review) -> RatingSummaryService.accumulate(summary,
+                                                review.getRating()))
+                                : Mono.error(EntityNotFoundException.of("book"))))
+                .map(RatingSummaryDTO::new);
+    }
+
+    static BookDTO toBookDTO(ReactiveBook book) {
+        return new BookDTO(book.getId(), book.getTitle(), book.getAuthor(), book.getPublisher(), book.getIsbn(),
+                book.getPublishedDate());
+    }
+}
@@ -0,0 +1,115 @@
+package com.bookstore.v1.services;
+
+import com.bookstore.v1.data.reactive.*;
+import com.bookstore.v1.dto.ReviewDTO;
+import com.bookstore.v1.dto.UserDTO;
+import com.bookstore.v1.exception.EntityNotFoundException;
+import com.mongodb.DBRef;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveReviewService {
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private ReactiveReviewRepository reactiveReviewRepository;
+    @Autowired
+    private ReactiveUserRepository reactiveUserRepository;
+    @Autowired
+    private ReactiveBookRepository reactiveBookRepository;
+
+    public Mono<ReviewDTO> getReviewById(String reviewId) {
+        return reactiveReviewRepository
+                .findById(reviewId)
+                .switchIfEmpty(Mono.error(() -> EntityNotFoundException.of("review")))
+                .flatMap(review -> toReviewDTOs(List.of(review), true, true).next());
+    }
+
+    public Flux<ReviewDTO> getReviews() {
+        return toReviewDTOs(reactiveReviewRepository.findAll(), true, true);
+    }
+
+    public Flux<ReviewDTO> getBookReviews(String bookId) {
+        return reactiveBookRepository
+                .existsById(bookId)
+                .flatMapMany(exists -> exists
+                        ? toReviewDTOs(reactiveReviewRepository.findAllByBook(DbRefs.of("books", bookId)), true,
+                        false)
+                        : Flux.error(EntityNotFoundException.of("book")));
+    }
+
+    public Flux<ReviewDTO> getUserReviews(String userId) {
+        return reactiveUserRepository
+                .existsById(userId)
+                .flatMapMany(exists -> exists
+                        ? toReviewDTOs(reactiveReviewRepository.findAllByUser(DbRefs.of("users", userId)), false,
+                        true)
+                        : Flux.error(EntityNotFoundException.of("user")));
+    }
+
+    // resolves the references of every batch of reviews with one $in query per collection
+    private Flux<ReviewDTO> toReviewDTOs(Flux<ReactiveReview> reviews, Boolean withUser, Boolean withBook) {
+        return reviews
+                .buffer(BATCH_SIZE)
+                .concatMap(batch -> toReviewDTOs(batch, withUser, withBook));
+    }
+
+    private Flux<ReviewDTO> toReviewDTOs(List<ReactiveReview> reviews, Boolean withUser, Boolean withBook) {
+        Mono<Map<String, ReactiveUser>> users = withUser
+                ? loadReferences(reviews, ReactiveReview::getUser, reactiveUserRepository::findAllById,
+                ReactiveUser::getId)
+                : Mono.just(Collections.emptyMap());
+        Mono<Map<String, ReactiveBook>> books = withBook
+                ? loadReferences(reviews, ReactiveReview::getBook, reactiveBookRepository::findAllById,
+                ReactiveBook::getId)
+                : Mono.just(Collections.emptyMap());
+
+        return Mono
+                .zip(users, books)
+                .flatMapIterable(loaded -> reviews
+                        .stream()
+                        .map(review -> toReviewDTO(review, loaded.getT1().get(DbRefs.idOf(review.getUser())),
+                                loaded.getT2().get(DbRefs.idOf(review.getBook()))))
+                        .collect(Collectors.toList()));
+    }
+
+    private static <T> Mono<Map<String, T>> loadReferences(List<ReactiveReview> reviews,
+                                                           Function<ReactiveReview, DBRef> reference,
+                                                           Function<Set<String>, Flux<T>> loader,
+                                                           Function<T, String> idGetter) {
+        Set<String> ids = reviews
+                .stream()
+                .map(review -> DbRefs.idOf(reference.apply(review)))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (ids.isEmpty()) {
+            return Mono.just(Collections.emptyMap());
+        }
+        return loader.apply(ids).collectMap(idGetter);
+    }
+
+    private static ReviewDTO toReviewDTO(ReactiveReview review, ReactiveUser user, ReactiveBook book) {
+        ReviewDTO reviewDTO = new ReviewDTO(review.getId(), review.getTitle(), review.getDescription(),
+                review.getRating(), DbRefs.idOf(review.getUser()), DbRefs.idOf(review.getBook()));
+        if (user != null) {
+            reviewDTO.setUser(toUserDTO(user));
+        }
+        if (book != null) {
+            reviewDTO.setBook(ReactiveBookService.toBookDTO(book));
+        }
+        return reviewDTO;
+    }
+
+    static UserDTO toUserDTO(ReactiveUser user) {
+        return new UserDTO(user.getId(), user.getUserName(), user.getEmail(), user.getPhoneNumber());
+    }
+}
@@ -0,0 +1,88 @@
+package com.bookstore.v1.services;
+
+import com.bookstore.v1.data.reactive.*;
+import com.bookstore.v1.dto.BookDTO;
+import com.bookstore.v1.dto.WishlistDTO;
+import com.bookstore.v1.exception.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveWishlistService {
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private ReactiveWishlistRepository reactiveWishlistRepository;
+    @Autowired
+    private ReactiveUserRepository reactiveUserRepository;
+    @Autowired
+    private ReactiveBookRepository reactiveBookRepository;
+
+    public Flux<WishlistDTO> getWishlists() {
+        return toWishlistDTOs(reactiveWishlistRepository.findAll());
+    }
+
+    public Flux<WishlistDTO> getUserWishlists(String userId) {
+        return reactiveUserRepository
+                .existsById(userId)
+                .flatMapMany(exists -> exists
+                        ? toWishlistDTOs(reactiveWishlistRepository.findAllByUser(DbRefs.of("users", userId)))
+                        : Flux.error(EntityNotFoundException.of("user")));
+    }
+
+    // resolves the users and books of every batch of wishlists with one $in query per collection
+    private Flux<WishlistDTO> toWishlistDTOs(Flux<ReactiveWishlist> wishlists) {
+        return wishlists
+                .buffer(BATCH_SIZE)
+                .concatMap(this::toWishlistDTOs);
+    }
+
+    private Flux<WishlistDTO> toWishlistDTOs(List<ReactiveWishlist> wishlists) {
+        Set<String> userIds = wishlists
+                .stream()
+                .map(wishlist -> DbRefs.idOf(wishlist.getUser()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<String> bookIds = wishlists
+                .stream()
+                .filter(wishlist -> wishlist.getBooks() != null)
+                .flatMap(wishlist -> wishlist.getBooks().stream())
+                .map(DbRefs::idOf)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Mono<Map<String, ReactiveUser>> users = userIds.isEmpty()
+                ? Mono.just(Collections.emptyMap())
+                : reactiveUserRepository.findAllById(userIds).collectMap(ReactiveUser::getId);
+        Mono<Map<String, ReactiveBook>> books = bookIds.isEmpty()
+                ? Mono.just(Collections.emptyMap())
+                : reactiveBookRepository.findAllById(bookIds).collectMap(ReactiveBook::getId);
+
+        return Mono
+                .zip(users, books)
+                .flatMapIterable(loaded -> wishlists
+                        .stream()
+                        .map(wishlist -> toWishlistDTO(wishlist, loaded.getT1(), loaded.getT2()))
+                        .collect(Collectors.toList()));
+    }
+
+    private static WishlistDTO toWishlistDTO(ReactiveWishlist wishlist, Map<String, ReactiveUser> users,
+                                             Map<String, ReactiveBook> books) {
+        ReactiveUser user = users.get(DbRefs.idOf(wishlist.getUser()));
+        List<BookDTO> bookDTOs = wishlist.getBooks() == null ? null : wishlist
+                .getBooks()
+                .stream()
+                .map(book -> books.get(DbRefs.idOf(book)))
+                .filter(Objects::nonNull)
+                .map(ReactiveBookService::toBookDTO)
+                .collect(Collectors.toList());
+        return new WishlistDTO(wishlist.getId(), wishlist.getTitle(), DbRefs.idOf(wishlist.getUser()),
+                user != null ? ReactiveReviewService.toUserDTO(user) : null, bookDTOs);
+    }
+}
@@ -0,0 +1,69 @@
+package com.bookstore.v1.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// single flight reads: concurrent callers asking for the same key while a load is running wait for that load and
+// share its result or exception instead of querying mongo themselves. nothing is kept once the load completes,
+// so a caller arriving afterwards always sees fresh data
+@Component
+public class RequestCoalescer {
+    public static final String REQUESTS_METER = "bookstore.coalescing.requests";
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    public RequestCoalescer(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    // the results are shared between the callers and must not be modified by them
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, String key, Supplier<T> loader) {
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(operation + ':' + key, load);
+        if (running != null) {
+            counter(operation, "collapsed").increment();
+            try {
+                return (T) running.join();
+            } catch (CompletionException e) {
+                throw rethrow(e.getCause());
+            }
+        }
+
+        counter(operation, "executed").increment();
+        try {
+            T result = loader.get();
+            load.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(operation + ':' + key, load);
+        }
+    }
+
+    private Counter counter(String operation, String result) {
+        // micrometer keeps one counter per name and tags, registering again returns the existing one
+        return Counter
+                .builder(REQUESTS_METER)
+                .description("Reads executed against mongo or collapsed into an identical read in flight")
+                .tag("operation", operation)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return (RuntimeException) cause;
+    }
+}
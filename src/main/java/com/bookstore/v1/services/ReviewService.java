@@ -1,33 +1,79 @@
 package com.bookstore.v1.services;
 
 import com.bookstore.v1.data.*;
+import com.bookstore.v1.dto.BulkItemResultDTO;
+import com.bookstore.v1.dto.FieldSelection;
 import com.bookstore.v1.dto.ReviewCreationDTO;
 import com.bookstore.v1.dto.ReviewDTO;
+import com.bookstore.v1.exception.BookstoreException;
 import com.bookstore.v1.exception.DuplicateObjectException;
 import com.bookstore.v1.exception.EmptyFieldException;
 import com.bookstore.v1.exception.EntityNotFoundException;
 import com.bookstore.v1.exception.InvalidDoubleRange;
 import com.bookstore.v1.validations.ReviewValidations;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
-import java.util.Optional;
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Component
 public class ReviewService {
+    private static final int STREAM_BATCH_SIZE = 500;
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+    // users per existing review query of a bulk submission, keeps the $or of one query small
+    private static final int EXISTING_PAIRS_QUERY_USERS = 500;
+    private static final String EMPTY_ITEM = "empty item";
+
     @Autowired
     private ReviewRepository reviewRepository;
     @Autowired
     private UserRepository userRepository;
     @Autowired
     private BookRepository bookRepository;
+    @Autowired
+    private RatingSummaryService ratingSummaryService;
+    @Autowired
+    private SnapshotService snapshotService;
+    @Autowired
+    private RequestCoalescer requestCoalescer;
+    @Autowired
+    private ETagService eTagService;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private WriteBehindQueue writeBehindQueue;
+    @Value("${bookstore.reviews.bulk.max-items:10000}")
+    private int bulkMaxItems;
+
+    // ratings of reviews inserted through the write-behind queue, summarized once per flush
+    private final Map<String, List<Double>> pendingRatings = new HashMap<>();
 
     Logger logger = LoggerFactory.getLogger(ReviewService.class);
 
+    @PostConstruct
+    public void registerFlushListener() {
+        if (writeBehindQueue.isEnabled()) {
+            writeBehindQueue.addFlushListener(this::recordPendingRatings);
+        }
+    }
+
     public ReviewDTO addReview(ReviewCreationDTO reviewCreationDTO) throws EmptyFieldException, InvalidDoubleRange,
             EntityNotFoundException, DuplicateObjectException {
         // validate review creation dto without the id since it will be auto-generated
@@ -39,23 +85,33 @@ public class ReviewService {
         Optional<User> user = userRepository.findById(reviewCreationDTO.getUserId());
         if (user.isEmpty()) {
             logger.warn("User not found with id: " + reviewCreationDTO.getUserId());
-            throw new EntityNotFoundException("user");
+            throw EntityNotFoundException.of("user");
         }
         Optional<Book> book = bookRepository.findById(reviewCreationDTO.getBookId());
         if (book.isEmpty()) {
             logger.warn("Book not found with id: " + reviewCreationDTO.getBookId() + " requested by user: " +
                         reviewCreationDTO.getUserId());
-            throw new EntityNotFoundException("book");
-        }
-        Optional<Review> existingReview = reviewRepository.findByUserAndBook(user.get(), book.get());
-        if (existingReview.isPresent()) {
-            logger.warn("Review already exists for book: " + book.get().getId() + " by user: " + user.get().getId());
-            throw new DuplicateObjectException("review");
+            throw EntityNotFoundException.of("book");
         }
 
         review.setUser(user.get());
         review.setBook(book.get());
-        review = reviewRepository.save(review);
+        if (snapshotService.isEnabled()) {
+            review.setUserSnapshot(UserSnapshot.of(user.get()));
+            review.setBookSnapshot(BookSnapshot.of(book.get()));
+        }
+        boolean writeBehind = writeBehindQueue.isEnabled();
+        try {
+            // the unique (user, book) index rejects duplicates, even for concurrent submissions
+            review = writeBehind ? insertBehind(review) : reviewRepository.insert(review);
+        } catch (DuplicateKeyException e) {
+            logger.warn("Review already exists for book: " + book.get().getId() + " by user: " + user.get().getId());
+            throw DuplicateObjectException.of("review");
+        }
+        if (!writeBehind) {
+            ratingSummaryService.recordAdded(book.get().getId(), review.getRating());
+            checkSnapshots(List.of(review));
+        }
 
         logger.info("Review created with id: " + review.getId() + " for book: " + book.get().getId() + " by user: " +
                     user.get().getId());
@@ -63,6 +119,144 @@ public class ReviewService {
         return new ReviewDTO(review, true, true);
     }
 
+    /**
+     * Adds a batch of reviews with few round trips: one $in query each for the users and books, one query per
+     * 500 users for existing reviews of the submitted (user, book) pairs and one unordered insert. Every item gets a
+     * result in request order, either the id of the created review or the reason it was rejected.
+     */
+    public List<BulkItemResultDTO> addReviews(List<ReviewCreationDTO> reviewCreationDTOs) throws InvalidDoubleRange {
+        if (reviewCreationDTOs == null || reviewCreationDTOs.isEmpty() || reviewCreationDTOs.size() > bulkMaxItems) {
+            throw InvalidDoubleRange.of("reviews", 1.0, (double) bulkMaxItems);
+        }
+        BulkItemResultDTO[] results = new BulkItemResultDTO[reviewCreationDTOs.size()];
+
+        List<Integer> valid = new ArrayList<>();
+        for (int i = 0; i < reviewCreationDTOs.size(); i++) {
+            if (reviewCreationDTOs.get(i) == null) {
+                results[i] = BulkItemResultDTO.failed(i, EMPTY_ITEM);
+                continue;
+            }
+            try {
+                ReviewValidations.validateReviewCreationDTO(reviewCreationDTOs.get(i), false);
+                valid.add(i);
+            } catch (BookstoreException e) {
+                results[i] = BulkItemResultDTO.failed(i, e.getMessage());
+            }
+        }
+
+        Map<String, User> users = new HashMap<>();
+        userRepository
+                .findAllById(valid.stream().map(i -> reviewCreationDTOs.get(i).getUserId()).collect(Collectors.toSet()))
+                .forEach(user -> users.put(user.getId(), user));
+        Map<String, Book> books = new HashMap<>();
+        bookRepository
+                .findAllById(valid.stream().map(i -> reviewCreationDTOs.get(i).getBookId()).collect(Collectors.toSet()))
+                .forEach(book -> books.put(book.getId(), book));
+
+        List<Integer> resolved = new ArrayList<>();
+        Map<String, Map<String, Book>> booksByUser = new HashMap<>();
+        for (int i : valid) {
+            User user = users.get(reviewCreationDTOs.get(i).getUserId());
+            Book book = books.get(reviewCreationDTOs.get(i).getBookId());
+            if (user == null) {
+                results[i] = BulkItemResultDTO.failed(i, EntityNotFoundException.of("user").getMessage());
+            } else if (book == null) {
+                results[i] = BulkItemResultDTO.failed(i, EntityNotFoundException.of("book").getMessage());
+            } else {
+                booksByUser.computeIfAbsent(user.getId(), userId -> new HashMap<>()).put(book.getId(), book);
+                resolved.add(i);
+            }
+        }
+
+        Set<String> existingPairs = existingReviewPairs(users, booksByUser);
+        List<Review> reviews = new ArrayList<>();
+        List<Integer> reviewIndexes = new ArrayList<>();
+        for (int i : resolved) {
+            ReviewCreationDTO reviewCreationDTO = reviewCreationDTOs.get(i);
+            User user = users.get(reviewCreationDTO.getUserId());
+            Book book = books.get(reviewCreationDTO.getBookId());
+            // also catches the same pair twice in one batch
+            if (!existingPairs.add(user.getId() + ':' + book.getId())) {
+                results[i] = BulkItemResultDTO.failed(i, DuplicateObjectException.of("review").getMessage());
+                continue;
+            }
+            Review review = reviewCreationDTO.toReview(true);
+            // ids are assigned up front so a failed insert can be reported against its item
+            review.setId(new ObjectId().toHexString());
+            // bulk inserts skip the version initialization of the repositories
+            review.setVersion(0L);
+            review.setUser(user);
+            review.setBook(book);
+            if (snapshotService.isEnabled()) {
+                review.setUserSnapshot(UserSnapshot.of(user));
+                review.setBookSnapshot(BookSnapshot.of(book));
+            }
+            reviews.add(review);
+            reviewIndexes.add(i);
+        }
+
+        Set<Integer> failedInserts = new HashSet<>();
+        if (!reviews.isEmpty()) {
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Review.class).insert(reviews).execute();
+            } catch (BulkOperationException e) {
+                // the unique (user, book) index still rejects reviews submitted concurrently
+                for (BulkWriteError error : e.getErrors()) {
+                    failedInserts.add(error.getIndex());
+                    results[reviewIndexes.get(error.getIndex())] = BulkItemResultDTO.failed(
+                            reviewIndexes.get(error.getIndex()),
+                            error.getCode() == DUPLICATE_KEY_ERROR
+                                    ? DuplicateObjectException.of("review").getMessage()
+                                    : error.getMessage());
+                }
+            }
+        }
+
+        Map<String, List<Double>> ratingsByBook = new HashMap<>();
+        List<Review> inserted = new ArrayList<>();
+        for (int i = 0; i < reviews.size(); i++) {
+            if (failedInserts.contains(i)) {
+                continue;
+            }
+            Review review = reviews.get(i);
+            results[reviewIndexes.get(i)] = BulkItemResultDTO.created(reviewIndexes.get(i), review.getId());
+            ratingsByBook
+                    .computeIfAbsent(review.getBook().getId(), bookId -> new ArrayList<>())
+                    .add(review.getRating());
+            inserted.add(review);
+        }
+        ratingSummaryService.recordAddedAll(ratingsByBook);
+        checkSnapshots(inserted);
+
+        logger.info("Bulk review import received: " + results.length + " inserted: " +
+                    (reviews.size() - failedInserts.size()));
+
+        return Arrays.asList(results);
+    }
+
+    // "userId:bookId" of the submitted pairs that already have a review. only those pairs are asked for, one
+    // $or branch per user over the books submitted for them, so the unique (user, book) index serves each branch
+    private Set<String> existingReviewPairs(Map<String, User> users, Map<String, Map<String, Book>> booksByUser) {
+        Set<String> existingPairs = new HashSet<>();
+        List<Criteria> branches = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Book>> entry : booksByUser.entrySet()) {
+            branches.add(Criteria
+                    .where("user").is(users.get(entry.getKey()))
+                    .and("book").in(entry.getValue().values()));
+        }
+        for (int from = 0; from < branches.size(); from += EXISTING_PAIRS_QUERY_USERS) {
+            List<Criteria> chunk = branches.subList(from, Math.min(from + EXISTING_PAIRS_QUERY_USERS,
+                    branches.size()));
+            Query query = Query.query(new Criteria().orOperator(chunk.toArray(new Criteria[0])));
+            query.fields().include("user").include("book");
+            mongoTemplate
+                    .find(query, Review.class)
+                    .forEach(review -> existingPairs.add(LazyReferences.idOf(review.getUser(), User::getId) + ':' +
+                                                         LazyReferences.idOf(review.getBook(), Book::getId)));
+        }
+        return existingPairs;
+    }
+
     public ReviewDTO updateReview(ReviewCreationDTO reviewUpdateDTO) throws EmptyFieldException, InvalidDoubleRange,
             EntityNotFoundException {
         // validate review update dto with the id since the object should already exist
@@ -72,14 +266,28 @@ public class ReviewService {
         if (oldReviewOpt.isEmpty()) {
             logger.warn("Review not found with id: " + reviewUpdateDTO.getId() + " requested by user: " +
                         reviewUpdateDTO.getUserId());
-            throw new EntityNotFoundException("review");
+            throw EntityNotFoundException.of("review");
         }
 
         Review newReview = oldReviewOpt.get();
+        Double oldRating = newReview.getRating();
         newReview.setTitle(reviewUpdateDTO.getTitle());
         newReview.setDescription(reviewUpdateDTO.getDescription());
         newReview.setRating(reviewUpdateDTO.getRating());
-        reviewRepository.save(newReview);
+        String bookId = LazyReferences.idOf(newReview.getBook(), Book::getId);
+        if (writeBehindQueue.isEnabled()) {
+            Update update = new Update()
+                    .set("title", newReview.getTitle())
+                    .set("description", newReview.getDescription())
+                    .set("rating", newReview.getRating())
+                    .inc("version", 1);
+            writeBehindQueue.acknowledge(writeBehindQueue.enqueue(Review.class, reviewUpdateDTO.getId(),
+                    bulk -> bulk.updateOne(byId(reviewUpdateDTO.getId()), update),
+                    () -> ratingSummaryService.recordUpdated(bookId, oldRating, reviewUpdateDTO.getRating())));
+        } else {
+            reviewRepository.save(newReview);
+            ratingSummaryService.recordUpdated(bookId, oldRating, newReview.getRating());
+        }
 
         logger.info("Review updated with id: " + newReview.getId() + " for book: " + newReview.getBook().getId() +
                     " by user: " + newReview.getUser().getId());
@@ -91,56 +299,284 @@ public class ReviewService {
         Optional<Review> reviewToDelete = reviewRepository.findById(reviewId);
         if (reviewToDelete.isEmpty()) {
             logger.warn("Review not found with id: " + reviewId);
-            throw new EntityNotFoundException("review");
+            throw EntityNotFoundException.of("review");
+        }
+        String bookId = LazyReferences.idOf(reviewToDelete.get().getBook(), Book::getId);
+        Double rating = reviewToDelete.get().getRating();
+        if (writeBehindQueue.isEnabled()) {
+            writeBehindQueue.acknowledge(writeBehindQueue.enqueue(Review.class, reviewId,
+                    bulk -> bulk.remove(byId(reviewId)),
+                    () -> ratingSummaryService.recordRemoved(bookId, rating)));
+        } else {
+            reviewRepository.delete(reviewToDelete.get());
+            ratingSummaryService.recordRemoved(bookId, rating);
         }
-        reviewRepository.delete(reviewToDelete.get());
 
         logger.info("Review deleted with id: " + reviewId);
     }
 
+    // the id is assigned up front so the response can carry it before the insert is flushed, the rating joins
+    // the summary together with the other ratings added in the same flush
+    private Review insertBehind(Review review) {
+        review.setId(new ObjectId().toHexString());
+        review.setVersion(0L);
+        String bookId = review.getBook().getId();
+        Double rating = review.getRating();
+        writeBehindQueue.acknowledge(writeBehindQueue.enqueue(Review.class, review.getId(), bulk -> bulk.insert(review),
+                () -> {
+                    synchronized (pendingRatings) {
+                        pendingRatings.computeIfAbsent(bookId, id -> new ArrayList<>()).add(rating);
+                    }
+                    checkSnapshots(List.of(review));
+                }));
+        return review;
+    }
+
+    private void checkSnapshots(List<Review> reviews) {
+        snapshotService.checkSnapshots(
+                reviews.stream().map(Review::getBookSnapshot).filter(Objects::nonNull).collect(Collectors.toList()),
+                reviews.stream().map(Review::getUserSnapshot).filter(Objects::nonNull).collect(Collectors.toList()));
+    }
+
+    private void recordPendingRatings() {
+        Map<String, List<Double>> ratingsByBook;
+        synchronized (pendingRatings) {
+            ratingsByBook = new HashMap<>(pendingRatings);
+            pendingRatings.clear();
+        }
+        ratingSummaryService.recordAddedAll(ratingsByBook);
+    }
+
+    private static Query byId(String reviewId) {
+        return Query.query(Criteria.where("id").is(reviewId));
+    }
+
     public ReviewDTO getReviewById(String reviewId) throws EntityNotFoundException {
+        return getReviewById(reviewId, FieldSelection.forReviews(null));
+    }
+
+    public ReviewDTO getReviewById(String reviewId, FieldSelection selection) throws EntityNotFoundException {
+        return requestCoalescer.execute("getReviewById", reviewId + ':' + selection,
+                () -> loadReviewById(reviewId, selection));
+    }
+
+    private ReviewDTO loadReviewById(String reviewId, FieldSelection selection) throws EntityNotFoundException {
         Optional<Review> review = reviewRepository.findById(reviewId);
         if (review.isEmpty()) {
             logger.warn("Review not found with id: " + reviewId);
-            throw new EntityNotFoundException("review");
+            throw EntityNotFoundException.of("review");
         }
 
         logger.info("Review retrieved with id: " + reviewId);
 
-        return new ReviewDTO(review.get(), true, true);
+        return toReviewDTOs(List.of(review.get()), selection.includes("user"), selection.includes("book")).get(0);
     }
 
+    @ListRead
     public List<ReviewDTO> getReviews() {
-        return reviewRepository
-                .findAll()
-                .stream()
-                .map(review -> new ReviewDTO(review, true, true))
-                .collect(Collectors.toList());
+        return toReviewDTOs(reviewRepository.findAll(), true, true);
+    }
+
+    // only the selected fields are read from mongo and only the selected relations are resolved
+    @ListRead
+    public List<ReviewDTO> getReviews(FieldSelection selection) {
+        if (selection.isAll()) {
+            return getReviews();
+        }
+        return getTaggedReviews(selection).getBody();
+    }
+
+    // the entity tag is taken from the same reviews as the body
+    @ListRead
+    public Tagged<List<ReviewDTO>> getTaggedReviews(FieldSelection selection) {
+        List<Review> reviews = selection.isAll()
+                ? reviewRepository.findAll()
+                : mongoTemplate.find(project(new Query(), selection), Review.class);
+        return new Tagged<>(toReviewDTOs(reviews, selection.includes("user"), selection.includes("book")),
+                eTagService.getReviewsETag("reviews", reviews, selection));
     }
 
+    @ListRead
+    public Stream<ReviewDTO> streamReviews() {
+        Stream<Review> reviews = reviewRepository.streamAll();
+        Iterator<List<Review>> batches = batches(reviews.iterator(), STREAM_BATCH_SIZE);
+        return StreamSupport
+                .stream(Spliterators.spliteratorUnknownSize(batches, Spliterator.ORDERED), false)
+                .flatMap(batch -> toReviewDTOs(batch, true, true).stream())
+                .onClose(reviews::close);
+    }
+
+    @ListRead
     public List<ReviewDTO> getBookReviews(String bookId) throws EntityNotFoundException {
+        return getBookReviews(bookId, FieldSelection.forReviews(null));
+    }
+
+    @ListRead
+    public List<ReviewDTO> getBookReviews(String bookId, FieldSelection selection) throws EntityNotFoundException {
+        return getTaggedBookReviews(bookId, selection).getBody();
+    }
+
+    // the entity tag is taken from the same reviews as the body, callers joining a load share both
+    @ListRead
+    public Tagged<List<ReviewDTO>> getTaggedBookReviews(String bookId, FieldSelection selection) throws
+            EntityNotFoundException {
+        return requestCoalescer.execute("getBookReviews", bookId + ':' + selection,
+                () -> loadBookReviews(bookId, selection));
+    }
+
+    private Tagged<List<ReviewDTO>> loadBookReviews(String bookId, FieldSelection selection) throws
+            EntityNotFoundException {
         Optional<Book> bookFilter = bookRepository.findById(bookId);
         if (bookFilter.isEmpty()) {
             logger.warn("Book not found with id: " + bookId);
-            throw new EntityNotFoundException("book");
+            throw EntityNotFoundException.of("book");
         }
-        return reviewRepository
-                .findAllByBook(bookFilter.get())
-                .stream()
-                .map(review -> new ReviewDTO(review, true, false))
-                .collect(Collectors.toList());
+        List<Review> reviews = selection.isAll()
+                ? reviewRepository.findAllByBook(bookFilter.get())
+                : mongoTemplate.find(project(Query.query(Criteria.where("book").is(bookFilter.get())), selection),
+                Review.class);
+        return new Tagged<>(toReviewDTOs(reviews, selection.includes("user"), false),
+                eTagService.getReviewsETag("book-reviews:" + bookId, reviews, selection));
     }
 
+    @ListRead
     public List<ReviewDTO> getUserReviews(String userId) throws EntityNotFoundException {
+        return getUserReviews(userId, FieldSelection.forReviews(null));
+    }
+
+    @ListRead
+    public List<ReviewDTO> getUserReviews(String userId, FieldSelection selection) throws EntityNotFoundException {
+        return getTaggedUserReviews(userId, selection).getBody();
+    }
+
+    @ListRead
+    public Tagged<List<ReviewDTO>> getTaggedUserReviews(String userId, FieldSelection selection) throws
+            EntityNotFoundException {
+        return requestCoalescer.execute("getUserReviews", userId + ':' + selection,
+                () -> loadUserReviews(userId, selection));
+    }
+
+    private Tagged<List<ReviewDTO>> loadUserReviews(String userId, FieldSelection selection) throws
+            EntityNotFoundException {
         Optional<User> userFilter = userRepository.findById(userId);
         if (userFilter.isEmpty()) {
             logger.warn("User not found with id: " + userId);
-            throw new EntityNotFoundException("user");
+            throw EntityNotFoundException.of("user");
+        }
+        List<Review> reviews = selection.isAll()
+                ? reviewRepository.findAllByUser(userFilter.get())
+                : mongoTemplate.find(project(Query.query(Criteria.where("user").is(userFilter.get())), selection),
+                Review.class);
+        return new Tagged<>(toReviewDTOs(reviews, false, selection.includes("book")),
+                eTagService.getReviewsETag("user-reviews:" + userId, reviews, selection));
+    }
+
+    // the reference and its snapshot are read for userId/user and bookId/book, the id and the version of the
+    // entity tag are always read
+    private static Query project(Query query, FieldSelection selection) {
+        query.fields().include("id").include("version");
+        for (String field : selection.fields()) {
+            switch (field) {
+                case "userId":
+                case "user":
+                    query.fields().include("user").include("userSnapshot");
+                    break;
+                case "bookId":
+                case "book":
+                    query.fields().include("book").include("bookSnapshot");
+                    break;
+                default:
+                    query.fields().include(field);
+            }
         }
-        return reviewRepository
-                .findAllByUser(userFilter.get())
+        return query;
+    }
+
+    // resolves the lazy user and book references of the whole list with one $in query per collection
+    // instead of letting every review dto resolve its own proxies; embedded snapshots need no query at all
+    private List<ReviewDTO> toReviewDTOs(List<Review> reviews, Boolean withUser, Boolean withBook) {
+        boolean fromSnapshots = snapshotService.isEnabled();
+        Map<String, User> users = withUser
+                ? loadReferences(withoutSnapshot(reviews, Review::getUserSnapshot, fromSnapshots), Review::getUser,
+                User::getId, userRepository::findAllById)
+                : Collections.emptyMap();
+        Map<String, Book> books = withBook
+                ? loadReferences(withoutSnapshot(reviews, Review::getBookSnapshot, fromSnapshots), Review::getBook,
+                Book::getId, bookRepository::findAllById)
+                : Collections.emptyMap();
+
+        return reviews
                 .stream()
-                .map(review -> new ReviewDTO(review, false, true))
+                .map(review -> new ReviewDTO(review,
+                        withUser ? userOf(review, users, fromSnapshots) : null,
+                        withBook ? bookOf(review, books, fromSnapshots) : null))
                 .collect(Collectors.toList());
     }
+
+    private static List<Review> withoutSnapshot(List<Review> reviews, Function<Review, ?> snapshot,
+                                                boolean fromSnapshots) {
+        if (!fromSnapshots) {
+            return reviews;
+        }
+        return reviews.stream().filter(review -> snapshot.apply(review) == null).collect(Collectors.toList());
+    }
+
+    private static User userOf(Review review, Map<String, User> users, boolean fromSnapshots) {
+        if (fromSnapshots && review.getUserSnapshot() != null) {
+            return review.getUserSnapshot().toUser();
+        }
+        return resolveReference(review.getUser(), User::getId, users);
+    }
+
+    private static Book bookOf(Review review, Map<String, Book> books, boolean fromSnapshots) {
+        if (fromSnapshots && review.getBookSnapshot() != null) {
+            return review.getBookSnapshot().toBook();
+        }
+        return resolveReference(review.getBook(), Book::getId, books);
+    }
+
+    private static <T> Map<String, T> loadReferences(List<Review> reviews, Function<Review, T> reference,
+                                                     Function<T, String> idGetter,
+                                                     Function<Set<String>, Iterable<T>> loader) {
+        Set<String> ids = reviews
+                .stream()
+                .map(review -> LazyReferences.idOf(reference.apply(review), idGetter))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, T> loaded = new HashMap<>();
+        if (ids.isEmpty()) {
+            return loaded;
+        }
+        for (T entity : loader.apply(ids)) {
+            loaded.put(idGetter.apply(entity), entity);
+        }
+        return loaded;
+    }
+
+    private static <T> T resolveReference(T reference, Function<T, String> idGetter, Map<String, T> loaded) {
+        // fall back to the reference itself when it was not part of the batch, e.g. a dangling reference
+        T resolved = loaded.get(LazyReferences.idOf(reference, idGetter));
+        return resolved != null ? resolved : reference;
+    }
+
+    private static <T> Iterator<List<T>> batches(Iterator<T> source, int batchSize) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return source.hasNext();
+            }
+
+            @Override
+            public List<T> next() {
+                if (!source.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                List<T> batch = new ArrayList<>(batchSize);
+                while (source.hasNext() && batch.size() < batchSize) {
+                    batch.add(source.next());
+                }
+                return batch;
+            }
+        };
+    }
 }
@@ -0,0 +1,159 @@
+package com.bookstore.v1.services;
+
+import com.bookstore.v1.data.*;
+import com.mongodb.client.result.UpdateResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// keeps the book and user snapshots embedded in reviews and wishlists in line with the referenced documents.
+// documents written before denormalization was enabled have no snapshots and are read through their references,
+// the refreshes run even while it is disabled so snapshots written earlier never go stale. the responses of
+// reviews and wishlists show the book or user and their etags are derived from their versions: the versions of
+// all the referencing documents are increased before the update returns, and again with every snapshot replaced
+@Component
+public class SnapshotService {
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Value("${bookstore.denormalization.enabled:false}")
+    private boolean enabled;
+
+    // a single thread applies the refreshes in the order of the updates that caused them
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor();
+
+    Logger logger = LoggerFactory.getLogger(SnapshotService.class);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // called once the book is stored, documents read through their references show it from now on
+    public void refreshBook(Book book) {
+        mongoTemplate.updateMulti(Query.query(Criteria.where("book").is(book)), newVersion(), Review.class);
+        mongoTemplate.updateMulti(Query.query(Criteria.where("books").is(book)), newVersion(), Wishlist.class);
+        refreshExecutor.execute(() -> applyBook(book));
+    }
+
+    // called once the user is stored, documents read through their references show it from now on
+    public void refreshUser(User user) {
+        mongoTemplate.updateMulti(Query.query(Criteria.where("user").is(user)), newVersion(), Review.class);
+        mongoTemplate.updateMulti(Query.query(Criteria.where("user").is(user)), newVersion(), Wishlist.class);
+        refreshExecutor.execute(() -> applyUser(user));
+    }
+
+    // writers take their snapshots from the cached books and users, which can be older than the stored ones, and
+    // a document written after the refresh of an update keeps the snapshot it was written with. called once the
+    // documents are written: books and users stored with a newer version than their snapshots are refreshed
+    // again, which reaches those documents too. an update stored after this read is refreshed after it anyway
+    public void checkSnapshots(Collection<BookSnapshot> bookSnapshots, Collection<UserSnapshot> userSnapshots) {
+        Map<String, Long> bookVersions = new HashMap<>();
+        bookSnapshots.forEach(snapshot -> bookVersions.merge(snapshot.getBookId(), version(snapshot.getVersion()),
+                Math::min));
+        Map<String, Long> userVersions = new HashMap<>();
+        userSnapshots.forEach(snapshot -> userVersions.merge(snapshot.getUserId(), version(snapshot.getVersion()),
+                Math::min));
+        if (bookVersions.isEmpty() && userVersions.isEmpty()) {
+            return;
+        }
+        refreshExecutor.execute(() -> {
+            try {
+                if (!bookVersions.isEmpty()) {
+                    Query query = Query.query(Criteria.where("id").in(bookVersions.keySet()));
+                    query.fields().include("title").include("author").include("version");
+                    mongoTemplate
+                            .find(query, Book.class)
+                            .stream()
+                            .filter(book -> version(book.getVersion()) > bookVersions.get(book.getId()))
+                            .forEach(this::applyBook);
+                }
+                if (!userVersions.isEmpty()) {
+                    Query query = Query.query(Criteria.where("id").in(userVersions.keySet()));
+                    query.fields().include("userName").include("version");
+                    mongoTemplate
+                            .find(query, User.class)
+                            .stream()
+                            .filter(user -> version(user.getVersion()) > userVersions.get(user.getId()))
+                            .forEach(this::applyUser);
+                }
+            } catch (RuntimeException e) {
+                logger.error("Snapshot check failed for books: " + bookVersions.keySet() + " and users: " +
+                             userVersions.keySet(), e);
+            }
+        });
+    }
+
+    private void applyBook(Book book) {
+        BookSnapshot snapshot = BookSnapshot.of(book);
+        try {
+            UpdateResult reviews = mongoTemplate.updateMulti(
+                    Query.query(olderThan(Criteria.where("bookSnapshot.bookId").is(book.getId()),
+                            "bookSnapshot.version", snapshot.getVersion())),
+                    newVersion().set("bookSnapshot", snapshot),
+                    Review.class);
+            UpdateResult wishlists = mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("bookSnapshots").elemMatch(olderThan(
+                            Criteria.where("bookId").is(book.getId()), "version", snapshot.getVersion()))),
+                    newVersion()
+                            .set("bookSnapshots.$[snapshot]", snapshot)
+                            .filterArray(olderThan(Criteria.where("snapshot.bookId").is(book.getId()),
+                                    "snapshot.version", snapshot.getVersion())),
+                    Wishlist.class);
+
+            logger.info("Book snapshot refreshed for book: " + book.getId() + " in " +
+                        reviews.getModifiedCount() + " reviews and " + wishlists.getModifiedCount() +
+                        " wishlists");
+        } catch (RuntimeException e) {
+            logger.error("Book snapshot refresh failed for book: " + book.getId(), e);
+        }
+    }
+
+    private void applyUser(User user) {
+        UserSnapshot snapshot = UserSnapshot.of(user);
+        try {
+            Query outdated = Query.query(olderThan(Criteria.where("userSnapshot.userId").is(user.getId()),
+                    "userSnapshot.version", snapshot.getVersion()));
+            UpdateResult reviews = mongoTemplate.updateMulti(outdated, newVersion().set("userSnapshot", snapshot),
+                    Review.class);
+            UpdateResult wishlists = mongoTemplate.updateMulti(outdated, newVersion().set("userSnapshot", snapshot),
+                    Wishlist.class);
+
+            logger.info("User snapshot refreshed for user: " + user.getId() + " in " +
+                        reviews.getModifiedCount() + " reviews and " + wishlists.getModifiedCount() +
+                        " wishlists");
+        } catch (RuntimeException e) {
+            logger.error("User snapshot refresh failed for user: " + user.getId(), e);
+        }
+    }
+
+    // snapshots taken from an older version, or written before snapshots carried one. refreshes of the same
+    // document can not undo each other whatever order they run in
+    private static Criteria olderThan(Criteria criteria, String versionField, Long version) {
+        return version == null ? criteria : criteria.and(versionField).not().gte(version);
+    }
+
+    private static long version(Long version) {
+        return version == null ? 0 : version;
+    }
+
+    private static Update newVersion() {
+        return new Update().inc("version", 1);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdown();
+    }
+}
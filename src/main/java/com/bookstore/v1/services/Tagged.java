@@ -0,0 +1,20 @@
+package com.bookstore.v1.services;
+
+// a response body together with the entity tag of the documents it was built from
+public class Tagged<T> {
+    private final T body;
+    private final String eTag;
+
+    public Tagged(T body, String eTag) {
+        this.body = body;
+        this.eTag = eTag;
+    }
+
+    public T getBody() {
+        return body;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+}
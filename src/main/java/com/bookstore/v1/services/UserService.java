@@ -8,16 +8,20 @@ import com.bookstore.v1.exception.EntityNotFoundException;
 import com.bookstore.v1.exception.InvalidDoubleRange;
 import com.bookstore.v1.validations.UserValidations;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Component
 public class UserService {
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private SnapshotService snapshotService;
 
     public UserDTO addUser(UserDTO userDTO) throws EmptyFieldException{
 
@@ -36,14 +40,23 @@ public class UserService {
 
         Optional<User> oldUserOpt = userRepository.findById(userUpdateDTO.getId());
         if (oldUserOpt.isEmpty()) {
-            throw new EntityNotFoundException("user");
+            throw EntityNotFoundException.of("user");
         }
 
-        User newUser = oldUserOpt.get();
-        newUser.setUserName(userUpdateDTO.getUserName());
-        newUser.setEmail(userUpdateDTO.getEmail());
-        newUser.setPhoneNumber(userUpdateDTO.getPhoneNumber());
-        userRepository.save(newUser);
+        // build a new entity instead of modifying the one shared through the users cache
+        User newUser = new User(oldUserOpt.get().getId(), userUpdateDTO.getUserName(), userUpdateDTO.getEmail(),
+                userUpdateDTO.getPhoneNumber());
+        newUser.setReviews(oldUserOpt.get().getReviews());
+        newUser.setWishlists(oldUserOpt.get().getWishlists());
+        newUser.setVersion(oldUserOpt.get().getVersion());
+        try {
+            userRepository.save(newUser);
+        } catch (OptimisticLockingFailureException e) {
+            // the cached user is older than the stored one, the next attempt reads the stored one
+            userRepository.evict(newUser.getId());
+            throw e;
+        }
+        snapshotService.refreshUser(newUser);
 
         return new UserDTO(newUser);
     }
@@ -51,19 +64,26 @@ public class UserService {
     public void deleteUserById(String userId) throws EntityNotFoundException {
         Optional<User> userToDelete = userRepository.findById(userId);
         if (userToDelete.isEmpty()) {
-            throw new EntityNotFoundException("user");
+            throw EntityNotFoundException.of("user");
+        }
+        try {
+            // removes by id and version, a cached user older than the stored one removes nothing
+            userRepository.delete(userToDelete.get());
+        } catch (OptimisticLockingFailureException e) {
+            userRepository.evict(userId);
+            throw e;
         }
-        userRepository.delete(userToDelete.get());
     }
 
     public UserDTO getUserById(String userId) throws EntityNotFoundException {
         Optional<User> user = userRepository.findById(userId);
         if (user.isEmpty()) {
-            throw new EntityNotFoundException("user");
+            throw EntityNotFoundException.of("user");
         }
         return new UserDTO(user.get());
     }
 
+    @ListRead
     public List<UserDTO> getUsers() {
         return userRepository
                 .findAll()
@@ -71,4 +91,11 @@ public class UserService {
                 .map(user -> new UserDTO(user))
                 .collect(Collectors.toList());
     }
+
+    @ListRead
+    public Stream<UserDTO> streamUsers() {
+        return userRepository
+                .streamAll()
+                .map(user -> new UserDTO(user));
+    }
 }
\ No newline at end of file
@@ -8,13 +8,18 @@ import com.bookstore.v1.exception.EntityNotFoundException;
 import com.bookstore.v1.exception.InvalidDoubleRange;
 import com.bookstore.v1.validations.ReviewValidations;
 import com.bookstore.v1.validations.WishlistValidations;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Component
 public class WishlistService {
@@ -24,6 +29,14 @@ public class WishlistService {
     private UserRepository userRepository;
     @Autowired
     private BookRepository bookRepository;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private SnapshotService snapshotService;
+    @Autowired
+    private WriteBehindQueue writeBehindQueue;
+    @Autowired
+    private ETagService eTagService;
 
     public WishlistDTO addWishlist(WishlistCreationDTO wishlistCreationDTO) throws EmptyFieldException, InvalidDoubleRange,
             EntityNotFoundException {
@@ -32,13 +45,26 @@ public class WishlistService {
 
         Optional<User> user = userRepository.findById(wishlistCreationDTO.getUserId());
         if (user.isEmpty()) {
-            throw new EntityNotFoundException("user");
+            throw EntityNotFoundException.of("user");
         }
 
         Wishlist wishlist = wishlistCreationDTO.toWishlist(true);
 
         wishlist.setUser(user.get());
-        wishlistRepository.save(wishlist);
+        if (snapshotService.isEnabled()) {
+            wishlist.setUserSnapshot(UserSnapshot.of(user.get()));
+            wishlist.setBookSnapshots(new ArrayList<>());
+        }
+        if (writeBehindQueue.isEnabled()) {
+            // the id is assigned up front so the response can carry it before the insert is flushed
+            wishlist.setId(new ObjectId().toHexString());
+            wishlist.setVersion(0L);
+            writeBehindQueue.acknowledge(writeBehindQueue.enqueue(Wishlist.class, wishlist.getId(),
+                    bulk -> bulk.insert(wishlist), () -> checkSnapshots(wishlist)));
+        } else {
+            wishlistRepository.save(wishlist);
+            checkSnapshots(wishlist);
+        }
         return new WishlistDTO(wishlist, true);
     }
 
@@ -49,12 +75,18 @@ public class WishlistService {
 
         Optional<Wishlist> oldWishlistOpt = wishlistRepository.findById(wishlistCreationDTO.getId());
         if (oldWishlistOpt.isEmpty()) {
-            throw new EntityNotFoundException("wishlist");
+            throw EntityNotFoundException.of("wishlist");
         }
 
         Wishlist newWishlist = oldWishlistOpt.get();
         newWishlist.setTitle(wishlistCreationDTO.getTitle());
-        wishlistRepository.save(newWishlist);
+        if (writeBehindQueue.isEnabled()) {
+            Update update = new Update().set("title", newWishlist.getTitle()).inc("version", 1);
+            writeBehindQueue.acknowledge(writeBehindQueue.enqueue(Wishlist.class, newWishlist.getId(),
+                    bulk -> bulk.updateOne(byId(newWishlist.getId()), update), () -> {}));
+        } else {
+            wishlistRepository.save(newWishlist);
+        }
 
         return new WishlistDTO(newWishlist, true);
     }
@@ -62,51 +94,268 @@ public class WishlistService {
     public void deleteWishlistById(String wishlistId) throws EntityNotFoundException {
         Optional<Wishlist> wishlistToDelete = wishlistRepository.findById(wishlistId);
         if (wishlistToDelete.isEmpty()) {
-            throw new EntityNotFoundException("wishlist");
+            throw EntityNotFoundException.of("wishlist");
+        }
+        if (writeBehindQueue.isEnabled()) {
+            writeBehindQueue.acknowledge(writeBehindQueue.enqueue(Wishlist.class, wishlistId,
+                    bulk -> bulk.remove(byId(wishlistId)), () -> {}));
+        } else {
+            wishlistRepository.delete(wishlistToDelete.get());
         }
-        wishlistRepository.delete(wishlistToDelete.get());
     }
 
+    @ListRead
     public List<WishlistDTO> getWishlists() {
         return wishlistRepository
                 .findAll()
                 .stream()
-                .map(wishlist -> new WishlistDTO(wishlist, true))
+                .map(this::toListedWishlistDTO)
                 .collect(Collectors.toList());
     }
 
+    // only the selected fields are read from mongo, the books of all wishlists are resolved with one $in query
+    // and only when they were selected
+    @ListRead
+    public List<WishlistDTO> getWishlists(FieldSelection selection) {
+        if (selection.isAll()) {
+            return getWishlists();
+        }
+        return toWishlistDTOs(mongoTemplate.find(project(new Query(), selection), Wishlist.class), selection);
+    }
+
+    @ListRead
+    public Stream<WishlistDTO> streamWishlists() {
+        return wishlistRepository
+                .streamAll()
+                .map(this::toListedWishlistDTO);
+    }
+
+    @ListRead
     public List<WishlistDTO> getUserWishlists(String userId) throws EntityNotFoundException{
         Optional<User> user = userRepository.findById(userId);
         if (user.isEmpty()) {
-            throw new EntityNotFoundException("user");
+            throw EntityNotFoundException.of("user");
         }
         return wishlistRepository
                 .findAllByUser(user.get())
                 .stream()
-                .map(wishlist -> new WishlistDTO(wishlist, true))
+                .map(this::toListedWishlistDTO)
                 .collect(Collectors.toList());
     }
 
+    @ListRead
+    public List<WishlistDTO> getUserWishlists(String userId, FieldSelection selection) throws EntityNotFoundException {
+        if (selection.isAll()) {
+            return getUserWishlists(userId);
+        }
+        return getTaggedUserWishlists(userId, selection).getBody();
+    }
+
+    // the entity tag is taken from the same wishlists as the body
+    @ListRead
+    public Tagged<List<WishlistDTO>> getTaggedUserWishlists(String userId, FieldSelection selection) throws
+            EntityNotFoundException {
+        Optional<User> user = userRepository.findById(userId);
+        if (user.isEmpty()) {
+            throw EntityNotFoundException.of("user");
+        }
+        List<Wishlist> wishlists;
+        List<WishlistDTO> wishlistDTOs;
+        if (selection.isAll()) {
+            wishlists = wishlistRepository.findAllByUser(user.get());
+            wishlistDTOs = wishlists.stream().map(this::toListedWishlistDTO).collect(Collectors.toList());
+        } else {
+            wishlists = mongoTemplate.find(project(Query.query(Criteria.where("user").is(user.get())), selection),
+                    Wishlist.class);
+            wishlistDTOs = toWishlistDTOs(wishlists, selection);
+        }
+        return new Tagged<>(wishlistDTOs, eTagService.getWishlistsETag("user-wishlists:" + userId, wishlists,
+                selection));
+    }
+
     public WishlistDTO addBook(String wishlistId, String bookId)  throws EntityNotFoundException, DuplicateObjectException{
+        Optional<Book> bookOpt = bookRepository.findById(bookId);
+        if (bookOpt.isEmpty()) {
+            throw EntityNotFoundException.of("book");
+        }
+
+        // a single conditional update: the existing books never have to be resolved to look for a duplicate
+        // and concurrent adds to the same wishlist can not overwrite each other. the duplicate check is part of
+        // the query since the version bump would make every update count as a modification
+        Query withoutBook = Query.query(Criteria.where("id").is(wishlistId).and("books").ne(bookOpt.get()));
+        Update update = new Update().addToSet("books", bookOpt.get()).inc("version", 1);
+        if (snapshotService.isEnabled()) {
+            update.addToSet("bookSnapshots", BookSnapshot.of(bookOpt.get()));
+        } else {
+            // the snapshots would miss this book, the wishlist is read through its references from now on
+            update.unset("userSnapshot").unset("bookSnapshots");
+        }
+        if (writeBehindQueue.isEnabled()) {
+            return addBookBehind(wishlistId, bookOpt.get(), withoutBook, update);
+        }
+        UpdateResult result = mongoTemplate.updateFirst(withoutBook, update, Wishlist.class);
+        if (result.getMatchedCount() == 0) {
+            // either there is no such wishlist or the book is already on it
+            if (!mongoTemplate.exists(Query.query(Criteria.where("id").is(wishlistId)), Wishlist.class)) {
+                throw EntityNotFoundException.of("wishlist");
+            }
+            throw DuplicateObjectException.of("duplicated book in wishlist");
+        }
+        checkBookSnapshot(bookOpt.get());
+
         Optional<Wishlist> wishlistOpt = wishlistRepository.findById(wishlistId);
         if (wishlistOpt.isEmpty()) {
-            throw new EntityNotFoundException("wishlist");
+            throw EntityNotFoundException.of("wishlist");
+        }
+        return toWishlistDTO(wishlistOpt.get());
+    }
+
+    // bulk writes only report counts for the whole batch, so the missing wishlist and the duplicate book are
+    // looked up before the update is queued instead of being read from its result
+    private WishlistDTO addBookBehind(String wishlistId, Book book, Query withoutBook, Update update) throws
+            EntityNotFoundException, DuplicateObjectException {
+        Optional<Wishlist> wishlistOpt = wishlistRepository.findById(wishlistId);
+        if (wishlistOpt.isEmpty()) {
+            throw EntityNotFoundException.of("wishlist");
         }
         Wishlist wishlist = wishlistOpt.get();
-        Optional<Book> bookOpt = bookRepository.findById(bookId);
-        if (bookOpt.isEmpty()) {
-            throw new EntityNotFoundException("book");
+        boolean duplicate = wishlist.getBooks() != null && wishlist
+                .getBooks()
+                .stream()
+                .anyMatch(listed -> book.getId().equals(LazyReferences.idOf(listed, Book::getId)));
+        if (duplicate) {
+            throw DuplicateObjectException.of("duplicated book in wishlist");
+        }
+        writeBehindQueue.acknowledge(writeBehindQueue.enqueue(Wishlist.class, wishlistId,
+                bulk -> bulk.updateOne(withoutBook, update), () -> checkBookSnapshot(book)));
+
+        // the response shows the wishlist as the queued update leaves it
+        if (wishlist.getBooks() == null) {
+            wishlist.setBooks(new ArrayList<>());
+        }
+        wishlist.addBook(book);
+        if (snapshotService.isEnabled() && wishlist.getBookSnapshots() != null) {
+            wishlist.getBookSnapshots().add(BookSnapshot.of(book));
+        } else {
+            wishlist.setUserSnapshot(null);
+            wishlist.setBookSnapshots(null);
+        }
+        return toWishlistDTO(wishlist);
+    }
+
+    private void checkSnapshots(Wishlist wishlist) {
+        if (wishlist.getUserSnapshot() != null) {
+            snapshotService.checkSnapshots(List.of(), List.of(wishlist.getUserSnapshot()));
+        }
+    }
+
+    private void checkBookSnapshot(Book book) {
+        if (snapshotService.isEnabled()) {
+            snapshotService.checkSnapshots(List.of(BookSnapshot.of(book)), List.of());
+        }
+    }
+
+    private static Query byId(String wishlistId) {
+        return Query.query(Criteria.where("id").is(wishlistId));
+    }
+
+    private WishlistDTO toListedWishlistDTO(Wishlist wishlist) {
+        if (hasSnapshots(wishlist)) {
+            return fromSnapshots(wishlist);
         }
-        Book book = bookOpt.get();
-        for(Book b : wishlist.getBooks()){
-            System.out.println(b);
-            if(Objects.equals(b.getId(), book.getId())){
-                throw new DuplicateObjectException("duplicated book in wishlist");
+        return new WishlistDTO(wishlist, true);
+    }
+
+    // resolves all the books of the wishlist with one $in query instead of one query per lazy reference
+    private WishlistDTO toWishlistDTO(Wishlist wishlist) {
+        if (hasSnapshots(wishlist)) {
+            return fromSnapshots(wishlist);
+        }
+        if (wishlist.getBooks() == null) {
+            return new WishlistDTO(wishlist, true);
+        }
+        Set<String> bookIds = wishlist
+                .getBooks()
+                .stream()
+                .map(book -> LazyReferences.idOf(book, Book::getId))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, Book> loadedBooks = new HashMap<>();
+        if (!bookIds.isEmpty()) {
+            bookRepository.findAllById(bookIds).forEach(book -> loadedBooks.put(book.getId(), book));
+        }
+        List<Book> books = wishlist
+                .getBooks()
+                .stream()
+                .map(book -> loadedBooks.getOrDefault(LazyReferences.idOf(book, Book::getId), book))
+                .collect(Collectors.toList());
+        return new WishlistDTO(wishlist, true, books);
+    }
+
+    private List<WishlistDTO> toWishlistDTOs(List<Wishlist> wishlists, FieldSelection selection) {
+        boolean withBooks = selection.includes("books");
+        Map<String, Book> loadedBooks = new HashMap<>();
+        if (withBooks) {
+            Set<String> bookIds = wishlists
+                    .stream()
+                    .filter(wishlist -> !hasSnapshots(wishlist) && wishlist.getBooks() != null)
+                    .flatMap(wishlist -> wishlist.getBooks().stream())
+                    .map(book -> LazyReferences.idOf(book, Book::getId))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+            if (!bookIds.isEmpty()) {
+                bookRepository.findAllById(bookIds).forEach(book -> loadedBooks.put(book.getId(), book));
             }
         }
+        return wishlists
+                .stream()
+                .map(wishlist -> {
+                    if (hasSnapshots(wishlist)) {
+                        return fromSnapshots(wishlist);
+                    }
+                    List<Book> books = withBooks && wishlist.getBooks() != null
+                            ? wishlist
+                            .getBooks()
+                            .stream()
+                            .map(book -> loadedBooks.getOrDefault(LazyReferences.idOf(book, Book::getId), book))
+                            .collect(Collectors.toList())
+                            : null;
+                    return new WishlistDTO(wishlist, selection.includes("user"), books);
+                })
+                .collect(Collectors.toList());
+    }
 
-        wishlist.addBook(book);
-        wishlistRepository.save(wishlist);
-        return new WishlistDTO(wishlist,true);
+    // the reference and its snapshots are read for userId/user and books, the id and the version of the entity tag
+    // are always read
+    private static Query project(Query query, FieldSelection selection) {
+        query.fields().include("id").include("version");
+        for (String field : selection.fields()) {
+            switch (field) {
+                case "userId":
+                case "user":
+                    query.fields().include("user").include("userSnapshot");
+                    break;
+                case "books":
+                    query.fields().include("books").include("bookSnapshots");
+                    break;
+                default:
+                    query.fields().include(field);
+            }
+        }
+        return query;
+    }
+
+    // wishlists created or given a book while denormalization was disabled are read through their references
+    private boolean hasSnapshots(Wishlist wishlist) {
+        return snapshotService.isEnabled() && wishlist.getUserSnapshot() != null &&
+               wishlist.getBookSnapshots() != null;
+    }
+
+    private static WishlistDTO fromSnapshots(Wishlist wishlist) {
+        return new WishlistDTO(wishlist, wishlist.getUserSnapshot().toUser(), wishlist
+                .getBookSnapshots()
+                .stream()
+                .map(BookSnapshot::toBook)
+                .collect(Collectors.toList()));
     }
 }
@@ -0,0 +1,347 @@
+package com.bookstore.v1.services;
+
+import com.bookstore.v1.exception.WriteQueueFullException;
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+// optional write-behind for review and wishlist mutations. callers queue their write and a single flusher thread
+// sends everything waiting as one unordered bulk write per collection, once a batch is full or the oldest queued
+// write waited for the flush interval. with ack=enqueue callers return as soon as their write is queued, with
+// ack=flush they wait for the bulk write it went out with and its callback; either way concurrent requests share
+// round trips
+@Component
+public class WriteBehindQueue {
+    public static final String QUEUE_DEPTH_METER = "bookstore.write-behind.queue.depth";
+    public static final String FLUSH_METER = "bookstore.write-behind.flush";
+    public static final String BATCH_SIZE_METER = "bookstore.write-behind.batch.size";
+    public static final String FAILED_WRITES_METER = "bookstore.write-behind.failed";
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+
+    public enum Ack { ENQUEUE, FLUSH }
+
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${bookstore.write-behind.enabled:false}")
+    private boolean enabled;
+    @Value("${bookstore.write-behind.ack:flush}")
+    private String ack;
+    @Value("${bookstore.write-behind.capacity:10000}")
+    private int capacity;
+    @Value("${bookstore.write-behind.batch-size:500}")
+    private int batchSize;
+    @Value("${bookstore.write-behind.flush-interval:20ms}")
+    private Duration flushInterval;
+    // how long a caller waits for room in a full queue before it is turned away
+    @Value("${bookstore.write-behind.enqueue-timeout:1s}")
+    private Duration enqueueTimeout;
+
+    private Ack acknowledgement = Ack.FLUSH;
+    private BlockingQueue<PendingWrite> queue;
+    private final List<Runnable> flushListeners = new CopyOnWriteArrayList<>();
+    private Thread flusher;
+    private volatile boolean running;
+    // the callbacks and flush listeners update rating summaries and snapshots with round trips of their own, they
+    // run here in flush order so the next batch does not wait for them
+    private final ExecutorService callbackExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "write-behind-callbacks");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    Logger logger = LoggerFactory.getLogger(WriteBehindQueue.class);
+
+    public WriteBehindQueue(MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        acknowledgement = Ack.valueOf(ack.trim().toUpperCase(Locale.ROOT));
+        queue = new ArrayBlockingQueue<>(capacity);
+        Gauge
+                .builder(QUEUE_DEPTH_METER, queue, Collection::size)
+                .description("Writes waiting in the write-behind queue")
+                .register(meterRegistry);
+        running = true;
+        flusher = new Thread(this::flushLoop, "write-behind-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+
+        logger.info("Write-behind started with ack: " + acknowledgement + " batch size: " + batchSize +
+                    " flush interval: " + flushInterval);
+    }
+
+    // lets the flusher empty the queue and stop, waits for the callbacks of its flushes and then flushes whatever
+    // is still left behind
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        boolean wasRunning = running;
+        running = false;
+        boolean stopped = awaitFlusher();
+        callbackExecutor.shutdown();
+        callbackExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        if (!wasRunning) {
+            return;
+        }
+        if (stopped) {
+            List<PendingWrite> remaining = new ArrayList<>();
+            queue.drainTo(remaining);
+            if (!remaining.isEmpty()) {
+                flush(remaining);
+            }
+        } else {
+            // draining now would send writes next to the flush in progress and break the order per document
+            logger.error("Write-behind flusher did not stop in time, " + queue.size() +
+                         " queued writes were not flushed");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // runs after every flush, once the callbacks of its writes ran
+    public void addFlushListener(Runnable listener) {
+        flushListeners.add(listener);
+    }
+
+    /**
+     * Queues a write against the document with the given id in the collection of the entity class. The write must
+     * add exactly one operation on that document to the bulk write it is given, onWritten runs once that operation
+     * succeeded. Without a running flusher the write is sent right away on the calling thread.
+     */
+    public CompletableFuture<Void> enqueue(Class<?> entityClass, Object documentId, Consumer<BulkOperations> write,
+                                           Runnable onWritten) throws WriteQueueFullException {
+        PendingWrite pending = new PendingWrite(entityClass, documentId, write, onWritten);
+        if (!running) {
+            // a shutdown may still be flushing the queue, this write must not overtake the writes in it
+            if (!awaitFlusher()) {
+                throw WriteQueueFullException.of("write-behind");
+            }
+            flush(List.of(pending));
+            return pending.written;
+        }
+        try {
+            if (!queue.offer(pending, enqueueTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                logger.warn("Write-behind queue full with " + queue.size() + " writes");
+                throw WriteQueueFullException.of("write-behind");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw WriteQueueFullException.of("write-behind");
+        }
+        return pending.written;
+    }
+
+    // returns right away for ack=enqueue, for ack=flush waits for the write and rethrows its failure
+    public void acknowledge(CompletableFuture<Void> written) {
+        if (acknowledgement == Ack.ENQUEUE && running) {
+            return;
+        }
+        try {
+            written.join();
+        } catch (CompletionException e) {
+            throw rethrow(e.getCause());
+        }
+    }
+
+    private void flushLoop() {
+        List<PendingWrite> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // the batch closes when it is full or when its first write waited for the flush interval
+                long deadline = System.nanoTime() + flushInterval.toNanos();
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Write-behind flush failed", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    void flush(List<PendingWrite> batch) {
+        Map<Class<?>, List<PendingWrite>> byCollection = new LinkedHashMap<>();
+        for (PendingWrite pending : batch) {
+            byCollection.computeIfAbsent(pending.entityClass, entityClass -> new ArrayList<>()).add(pending);
+        }
+        List<PendingWrite> written = new ArrayList<>();
+        byCollection.forEach((entityClass, writes) -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            write(entityClass, writes, written);
+            sample.stop(Timer
+                    .builder(FLUSH_METER)
+                    .description("Time taken by the bulk writes of the write-behind queue")
+                    .tag("collection", entityClass.getSimpleName())
+                    .register(meterRegistry));
+            DistributionSummary
+                    .builder(BATCH_SIZE_METER)
+                    .description("Writes sent with one bulk write of the write-behind queue")
+                    .tag("collection", entityClass.getSimpleName())
+                    .register(meterRegistry)
+                    .record(writes.size());
+        });
+        Runnable callbacks = () -> {
+            written.forEach(this::succeeded);
+            for (Runnable listener : flushListeners) {
+                try {
+                    listener.run();
+                } catch (RuntimeException e) {
+                    logger.error("Write-behind flush listener failed", e);
+                }
+            }
+        };
+        // without a running flusher the caller flushes and nothing else waits behind it
+        if (!running) {
+            callbacks.run();
+            return;
+        }
+        try {
+            callbackExecutor.execute(callbacks);
+        } catch (RejectedExecutionException e) {
+            callbacks.run();
+        }
+    }
+
+    // writes to different documents are independent and go out together as one unordered bulk write, so failed
+    // writes cost no extra round trips. the n-th write to a document goes out with the n-th bulk write, writes to
+    // the same document still apply in the order they were queued
+    private void write(Class<?> entityClass, List<PendingWrite> writes, List<PendingWrite> written) {
+        List<List<PendingWrite>> rounds = new ArrayList<>();
+        Map<Object, Integer> writesPerDocument = new HashMap<>();
+        for (PendingWrite pending : writes) {
+            int round = writesPerDocument.merge(pending.documentId, 1, Integer::sum) - 1;
+            if (round == rounds.size()) {
+                rounds.add(new ArrayList<>());
+            }
+            rounds.get(round).add(pending);
+        }
+        for (List<PendingWrite> round : rounds) {
+            try {
+                BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, entityClass);
+                round.forEach(pending -> pending.write.accept(bulk));
+                bulk.execute();
+                written.addAll(round);
+            } catch (BulkOperationException e) {
+                if (e.getErrors().isEmpty()) {
+                    round.forEach(pending -> failed(entityClass, pending, e));
+                    continue;
+                }
+                Map<Integer, BulkWriteError> errors = new HashMap<>();
+                e.getErrors().forEach(error -> errors.put(error.getIndex(), error));
+                for (int i = 0; i < round.size(); i++) {
+                    BulkWriteError error = errors.get(i);
+                    if (error == null) {
+                        written.add(round.get(i));
+                    } else {
+                        failed(entityClass, round.get(i), error.getCode() == DUPLICATE_KEY_ERROR
+                                ? new DuplicateKeyException(error.getMessage())
+                                : e);
+                    }
+                }
+            } catch (RuntimeException e) {
+                round.forEach(pending -> failed(entityClass, pending, e));
+            }
+        }
+    }
+
+    private void succeeded(PendingWrite pending) {
+        try {
+            pending.onWritten.run();
+        } catch (RuntimeException e) {
+            logger.error("Write-behind callback failed after a successful write", e);
+        }
+        pending.written.complete(null);
+    }
+
+    private void failed(Class<?> entityClass, PendingWrite pending, RuntimeException cause) {
+        // with ack=enqueue nobody waits for the write anymore, this is the only trace it leaves
+        logger.warn("Write-behind write to " + entityClass.getSimpleName() + " failed: " + cause.getMessage());
+        Counter
+                .builder(FAILED_WRITES_METER)
+                .description("Writes of the write-behind queue rejected by mongo")
+                .tag("collection", entityClass.getSimpleName())
+                .register(meterRegistry)
+                .increment();
+        pending.written.completeExceptionally(cause);
+    }
+
+    // true once the flusher thread is gone, or when there never was one
+    private boolean awaitFlusher() {
+        if (flusher == null) {
+            return true;
+        }
+        try {
+            flusher.join(flushInterval.toMillis() + TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !flusher.isAlive();
+    }
+
+    private static RuntimeException rethrow(Throwable cause) {
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return (RuntimeException) cause;
+    }
+
+    static class PendingWrite {
+        private final Class<?> entityClass;
+        private final Object documentId;
+        private final Consumer<BulkOperations> write;
+        private final Runnable onWritten;
+        private final CompletableFuture<Void> written = new CompletableFuture<>();
+
+        PendingWrite(Class<?> entityClass, Object documentId, Consumer<BulkOperations> write, Runnable onWritten) {
+            this.entityClass = entityClass;
+            this.documentId = documentId;
+            this.write = write;
+            this.onWritten = onWritten;
+        }
+    }
+}
@@ -9,23 +9,23 @@ public class BookValidations {
     public static void validateBookDTO(BookDTO bookDTO, Boolean validateId) throws EmptyFieldException {
         if (validateId) {
             if (bookDTO.getId() == null) {
-                throw new EmptyFieldException("id");
+                throw EmptyFieldException.of("id");
             }
         }
         if (bookDTO.getTitle() == null || bookDTO.getTitle().isEmpty()) {
-            throw new EmptyFieldException("title");
+            throw EmptyFieldException.of("title");
         }
         if (bookDTO.getAuthor() == null || bookDTO.getAuthor().isEmpty()) {
-            throw new EmptyFieldException("author");
+            throw EmptyFieldException.of("author");
         }
         if (bookDTO.getPublisher() == null || bookDTO.getPublisher().isEmpty()) {
-            throw new EmptyFieldException("publisher");
+            throw EmptyFieldException.of("publisher");
         }
         if (bookDTO.getIsbn() == null || bookDTO.getIsbn().isEmpty()) {
-            throw new EmptyFieldException("isbn");
+            throw EmptyFieldException.of("isbn");
         }
         if (bookDTO.getPublishedDate() == null) {
-            throw new EmptyFieldException("publisher date");
+            throw EmptyFieldException.of("publisher date");
         }
     }
 }
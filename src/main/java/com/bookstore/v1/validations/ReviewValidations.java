@@ -9,29 +9,29 @@ public class ReviewValidations {
             EmptyFieldException, InvalidDoubleRange {
         if (validateId) {
             if (reviewCreationDTO.getId() == null) {
-                throw new EmptyFieldException("id");
+                throw EmptyFieldException.of("id");
             }
         }
         if (reviewCreationDTO.getTitle() == null || reviewCreationDTO.getTitle().isEmpty()) {
-            throw new EmptyFieldException("title");
+            throw EmptyFieldException.of("title");
         }
         if (reviewCreationDTO.getDescription() == null || reviewCreationDTO.getDescription().isEmpty()) {
-            throw new EmptyFieldException("description");
+            throw EmptyFieldException.of("description");
         }
         if (reviewCreationDTO.getRating() == null) {
-            throw new EmptyFieldException("rating");
+            throw EmptyFieldException.of("rating");
         }
         if (reviewCreationDTO.getRating() < 0 || reviewCreationDTO.getRating() > 5) {
-            throw new InvalidDoubleRange("rating", 0.0, 5.0);
+            throw InvalidDoubleRange.of("rating", 0.0, 5.0);
         }
 
         // if we validate the main id, we won't need the other relationship ids
         if (!validateId) {
             if (reviewCreationDTO.getUserId() == null) {
-                throw new EmptyFieldException("userId");
+                throw EmptyFieldException.of("userId");
             }
             if (reviewCreationDTO.getBookId() == null) {
-                throw new EmptyFieldException("bookId");
+                throw EmptyFieldException.of("bookId");
             }
         }
     }
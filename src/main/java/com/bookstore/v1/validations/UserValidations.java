@@ -9,17 +9,17 @@ public class UserValidations {
     public static void validateUserDTO(UserDTO userDTO, Boolean validateId) throws EmptyFieldException {
         if (validateId) {
             if (userDTO.getId() == null) {
-                throw new EmptyFieldException("id");
+                throw EmptyFieldException.of("id");
             }
         }
         if (userDTO.getUserName() == null || userDTO.getUserName().isEmpty()) {
-            throw new EmptyFieldException("userName");
+            throw EmptyFieldException.of("userName");
         }
         if (userDTO.getEmail() == null || userDTO.getEmail().isEmpty()) {
-            throw new EmptyFieldException("email");
+            throw EmptyFieldException.of("email");
         }
         if (userDTO.getPhoneNumber() == null || userDTO.getPhoneNumber().isEmpty()) {
-            throw new EmptyFieldException("phoneNumber");
+            throw EmptyFieldException.of("phoneNumber");
         }
     }
 }
@@ -9,17 +9,17 @@ public class WishlistValidations {
             EmptyFieldException, InvalidDoubleRange {
         if (validateId) {
             if (wishlistCreationDTO.getId() == null) {
-                throw new EmptyFieldException("id");
+                throw EmptyFieldException.of("id");
             }
         }
         if (wishlistCreationDTO.getTitle() == null || wishlistCreationDTO.getTitle().isEmpty()) {
-            throw new EmptyFieldException("title");
+            throw EmptyFieldException.of("title");
         }
 
         // if we validate the main id, we won't need the other relationship ids
         if (!validateId) {
             if (wishlistCreationDTO.getUserId() == null) {
-                throw new EmptyFieldException("userId");
+                throw EmptyFieldException.of("userId");
             }
         }
     }
@@ -0,0 +1,153 @@
+package com.bookstore.v1.perf;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.main.web-application-type=servlet", "logging.level.com.bookstore.v1=WARN"})
+@Tag("PERF")
+@DisplayName("Bookstore load and latency regression test")
+class BookstorePerfTest {
+    private static final PerfSettings settings = new PerfSettings();
+    private static MongoDBContainer mongo;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @LocalServerPort
+    private int port;
+
+    Logger logger = LoggerFactory.getLogger(BookstorePerfTest.class);
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        if (settings.getMongodbUrl() != null) {
+            registry.add("mongodb.connection.url", settings::getMongodbUrl);
+            return;
+        }
+        // same image as docker-compose
+        mongo = new MongoDBContainer(DockerImageName.parse("mongo:5.0.2"));
+        mongo.start();
+        registry.add("mongodb.connection.url", mongo::getReplicaSetUrl);
+    }
+
+    @AfterAll
+    static void stopMongo() {
+        if (mongo != null) {
+            mongo.stop();
+        }
+    }
+
+    @Test
+    void test_readMix_willNotRegressAgainstBaseline() throws Exception {
+        Catalog catalog = seed();
+        OpenModelLoadGenerator loadGenerator =
+                new OpenModelLoadGenerator("http://localhost:" + port, catalog, settings.getMaxInFlight());
+
+        logger.warn("Warming up for " + settings.getWarmup().toSeconds() + "s at " + settings.getRate() + " req/s");
+        loadGenerator.run(settings.getMix(), settings.getRate(), settings.getWarmup());
+        logger.warn("Measuring for " + settings.getDuration().toSeconds() + "s at " + settings.getRate() + " req/s");
+        PerfReport report = new PerfReport(settings.getRate(), settings.getDuration().toSeconds(), settings.getMix(),
+                loadGenerator.run(settings.getMix(), settings.getRate(), settings.getDuration()));
+        report.write(settings.getReportsDir().resolve("results.json"));
+        report.getOperations().forEach((name, result) -> logger.warn(String.format(
+                "%-24s %8d requests %6d errors %9.1f req/s p50 %8.2f ms p99 %8.2f ms p999 %8.2f ms", name,
+                result.getCount(), result.getErrors(), result.getThroughput(), result.getP50Millis(),
+                result.getP99Millis(), result.getP999Millis())));
+
+        report.getOperations().forEach((name, result) -> Assertions.assertEquals(0, result.getErrors(),
+                () -> name + " had failed or dropped requests"));
+
+        PerfReport baseline;
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(settings.getBaseline())) {
+            if (in == null) {
+                // never invent a baseline: record this run as a candidate to review and check in, and fail so a
+                // missing baseline can not pass for a gate that held
+                report.write(settings.getReportsDir().resolve("baseline-candidate.json"));
+                Assertions.fail("No baseline " + settings.getBaseline() + " found, review " +
+                                settings.getReportsDir().resolve("baseline-candidate.json") +
+                                " and check it in as src/perfTest/resources/" + settings.getBaseline());
+            }
+            baseline = PerfReport.read(in);
+        }
+        Assumptions.assumeTrue(baseline.getRate() == report.getRate() && baseline.getMix().equals(report.getMix()),
+                "The baseline was recorded with another rate or mix, latencies are not comparable");
+        List<String> regressions = report.regressionsAgainst(baseline, settings.getRegressionThreshold(),
+                settings.getRegressionMinDeltaMillis());
+        Assertions.assertTrue(regressions.isEmpty(), () -> "Latency regressed against the baseline:\n" +
+                                                           String.join("\n", regressions));
+    }
+
+    private Catalog seed() throws Exception {
+        StringBuilder books = new StringBuilder();
+        for (int i = 0; i < settings.getBooks(); i++) {
+            books.append(objectMapper.writeValueAsString(Map.of("title", Catalog.title(i),
+                    "author", "author " + (i % 100), "publisher", "publisher " + (i % 10),
+                    "isbn", String.format("978%010d", i), "publishedDate", "2020-01-01"))).append('\n');
+        }
+        send(HttpRequest
+                .newBuilder(uri("/book/add-books"))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(books.toString())));
+        List<String> bookIds = new ArrayList<>();
+        for (JsonNode book : send(HttpRequest.newBuilder(uri("/book/get-books?fields=id")).GET())) {
+            bookIds.add(book.get("id").asText());
+        }
+
+        List<String> userIds = new ArrayList<>();
+        for (int i = 0; i < settings.getUsers(); i++) {
+            JsonNode user = send(post("/user/add-user", Map.of("userName", "user" + i,
+                    "email", "user" + i + "@example.com", "phoneNumber", String.format("07%08d", i))));
+            userIds.add(user.get("id").asText());
+        }
+
+        // distinct books per user, the (user, book) pair of a review is unique
+        for (int u = 0; u < userIds.size(); u++) {
+            for (int r = 0; r < settings.getReviewsPerUser(); r++) {
+                String bookId = bookIds.get((u * settings.getReviewsPerUser() + r) % bookIds.size());
+                send(post("/review/add-review", Map.of("title", "review " + r, "description", "description",
+                        "rating", (double) ((u + r) % 11) / 2, "userId", userIds.get(u), "bookId", bookId)));
+            }
+        }
+        logger.warn("Seeded " + bookIds.size() + " books, " + userIds.size() + " users and " +
+                    userIds.size() * settings.getReviewsPerUser() + " reviews");
+        return new Catalog(bookIds, userIds);
+    }
+
+    private HttpRequest.Builder post(String path, Map<String, Object> body) throws Exception {
+        return HttpRequest
+                .newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)));
+    }
+
+    private JsonNode send(HttpRequest.Builder request) throws Exception {
+        HttpResponse<String> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException("Seeding failed with " + response.statusCode() + ": " + response.body());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
@@ -0,0 +1,55 @@
+package com.bookstore.v1.perf;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+// the seeded data and the read endpoints the load mix is made of
+public class Catalog {
+    static final List<String> WORDS = List.of("river", "shadow", "garden", "winter", "empire", "silent", "ocean",
+            "stone", "glass", "harbor", "forest", "ember", "crown", "letter", "island", "mirror");
+
+    static final Map<String, Function<Catalog, String>> OPERATIONS = Map.of(
+            "getBook", catalog -> "/book/get-book/" + catalog.randomBookId(),
+            "getBookWithRating", catalog -> "/book/get-book/" + catalog.randomBookId() + "?withRating=true",
+            "getBookReviews", catalog -> "/review/get-book-reviews/" + catalog.randomBookId(),
+            "getBookReviewsProjected", catalog -> "/review/get-book-reviews/" + catalog.randomBookId() +
+                                                 "?fields=id,title,rating",
+            "getUserReviews", catalog -> "/review/get-user-reviews/" + catalog.randomUserId(),
+            "getBooksPage", catalog -> "/book/get-books-page?limit=50",
+            "searchBooks", catalog -> "/book/search-books?size=20&query=" + encode(catalog.randomWord()),
+            "suggestBooks", catalog -> "/book/suggest?limit=10&prefix=" +
+                                       encode(catalog.randomWord().substring(0, 3)));
+
+    private final List<String> bookIds;
+    private final List<String> userIds;
+
+    public Catalog(List<String> bookIds, List<String> userIds) {
+        this.bookIds = bookIds;
+        this.userIds = userIds;
+    }
+
+    static String title(int index) {
+        return WORDS.get(index % WORDS.size()) + " " + WORDS.get((index / WORDS.size()) % WORDS.size()) + " " +
+               index;
+    }
+
+    String randomBookId() {
+        return bookIds.get(ThreadLocalRandom.current().nextInt(bookIds.size()));
+    }
+
+    String randomUserId() {
+        return userIds.get(ThreadLocalRandom.current().nextInt(userIds.size()));
+    }
+
+    String randomWord() {
+        return WORDS.get(ThreadLocalRandom.current().nextInt(WORDS.size()));
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
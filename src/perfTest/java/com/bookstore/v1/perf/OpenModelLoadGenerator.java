@@ -0,0 +1,199 @@
+package com.bookstore.v1.perf;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Sends requests at a fixed arrival rate whatever the response times are, like independent users do. Latencies are
+ * measured from the moment a request was due rather than from when it was sent, so a stalled server shows up in
+ * the tail instead of silently lowering the load (coordinated omission).
+ */
+public class OpenModelLoadGenerator {
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final HttpClient httpClient = HttpClient
+            .newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final String baseUrl;
+    private final Catalog catalog;
+    private final int maxInFlight;
+
+    public OpenModelLoadGenerator(String baseUrl, Catalog catalog, int maxInFlight) {
+        this.baseUrl = baseUrl;
+        this.catalog = catalog;
+        this.maxInFlight = maxInFlight;
+    }
+
+    public Map<String, OperationResult> run(Map<String, Integer> mix, double rate, Duration duration)
+            throws InterruptedException {
+        List<String> names = new ArrayList<>(mix.keySet());
+        int[] cumulativeWeights = new int[names.size()];
+        int totalWeight = 0;
+        Map<String, OperationStats> stats = new LinkedHashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            if (!Catalog.OPERATIONS.containsKey(names.get(i))) {
+                throw new IllegalArgumentException("Unknown operation " + names.get(i) + ", known operations are " +
+                                                   Catalog.OPERATIONS.keySet());
+            }
+            totalWeight += mix.get(names.get(i));
+            cumulativeWeights[i] = totalWeight;
+            stats.put(names.get(i), new OperationStats());
+        }
+
+        AtomicInteger inFlight = new AtomicInteger();
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (long due = start; due < end; due += intervalNanos) {
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            String name = names.get(pick(cumulativeWeights, totalWeight));
+            OperationStats operationStats = stats.get(name);
+            if (inFlight.get() >= maxInFlight) {
+                // the server fell too far behind, count it instead of queueing without bound
+                operationStats.errors.incrementAndGet();
+                continue;
+            }
+            inFlight.incrementAndGet();
+            long dueTime = due;
+            HttpRequest request = HttpRequest
+                    .newBuilder(URI.create(baseUrl + Catalog.OPERATIONS.get(name).apply(catalog)))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+            httpClient
+                    .sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        long latency = Math.min(System.nanoTime() - dueTime, HIGHEST_TRACKABLE_NANOS);
+                        operationStats.latencies.recordValue(latency);
+                        if (error != null || response.statusCode() >= 400) {
+                            operationStats.errors.incrementAndGet();
+                        }
+                        inFlight.decrementAndGet();
+                    });
+        }
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        Map<String, OperationResult> results = new LinkedHashMap<>();
+        stats.forEach((name, operationStats) -> results.put(name,
+                OperationResult.of(operationStats.latencies.getIntervalHistogram(), operationStats.errors.get(),
+                        elapsedSeconds)));
+        return results;
+    }
+
+    private static int pick(int[] cumulativeWeights, int totalWeight) {
+        int ticket = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (ticket < cumulativeWeights[i]) {
+                return i;
+            }
+        }
+        return cumulativeWeights.length - 1;
+    }
+
+    private static class OperationStats {
+        private final Recorder latencies = new Recorder(HIGHEST_TRACKABLE_NANOS, 3);
+        private final AtomicLong errors = new AtomicLong();
+    }
+
+    public static class OperationResult {
+        private long count;
+        private long errors;
+        private double throughput;
+        private double p50Millis;
+        private double p99Millis;
+        private double p999Millis;
+        private double maxMillis;
+
+        public OperationResult() {}
+
+        static OperationResult of(Histogram histogram, long errors, double elapsedSeconds) {
+            OperationResult result = new OperationResult();
+            result.count = histogram.getTotalCount();
+            result.errors = errors;
+            result.throughput = histogram.getTotalCount() / elapsedSeconds;
+            result.p50Millis = histogram.getValueAtPercentile(50.0) / 1e6;
+            result.p99Millis = histogram.getValueAtPercentile(99.0) / 1e6;
+            result.p999Millis = histogram.getValueAtPercentile(99.9) / 1e6;
+            result.maxMillis = histogram.getMaxValue() / 1e6;
+            return result;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public void setErrors(long errors) {
+            this.errors = errors;
+        }
+
+        public double getThroughput() {
+            return throughput;
+        }
+
+        public void setThroughput(double throughput) {
+            this.throughput = throughput;
+        }
+
+        public double getP50Millis() {
+            return p50Millis;
+        }
+
+        public void setP50Millis(double p50Millis) {
+            this.p50Millis = p50Millis;
+        }
+
+        public double getP99Millis() {
+            return p99Millis;
+        }
+
+        public void setP99Millis(double p99Millis) {
+            this.p99Millis = p99Millis;
+        }
+
+        public double getP999Millis() {
+            return p999Millis;
+        }
+
+        public void setP999Millis(double p999Millis) {
+            this.p999Millis = p999Millis;
+        }
+
+        public double getMaxMillis() {
+            return maxMillis;
+        }
+
+        public void setMaxMillis(double maxMillis) {
+            this.maxMillis = maxMillis;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.bookstore.v1.perf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// the results of one measured run; the checked in baseline has the same format
+public class PerfReport {
+    private static final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private double rate;
+    private long durationSeconds;
+    private Map<String, Integer> mix = new LinkedHashMap<>();
+    private Map<String, OpenModelLoadGenerator.OperationResult> operations = new LinkedHashMap<>();
+
+    public PerfReport() {}
+
+    public PerfReport(double rate, long durationSeconds, Map<String, Integer> mix,
+                      Map<String, OpenModelLoadGenerator.OperationResult> operations) {
+        this.rate = rate;
+        this.durationSeconds = durationSeconds;
+        this.mix = mix;
+        this.operations = operations;
+    }
+
+    static PerfReport read(InputStream in) throws IOException {
+        return objectMapper.readValue(in, PerfReport.class);
+    }
+
+    void write(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        objectMapper.writeValue(file.toFile(), this);
+    }
+
+    /**
+     * Lists every p50, p99 and p999 latency that grew by more than the relative threshold and the absolute minimum
+     * delta compared with the baseline. Operations missing from either side are not compared.
+     */
+    List<String> regressionsAgainst(PerfReport baseline, double threshold, double minDeltaMillis) {
+        List<String> regressions = new ArrayList<>();
+        operations.forEach((name, current) -> {
+            OpenModelLoadGenerator.OperationResult previous = baseline.getOperations().get(name);
+            if (previous == null) {
+                return;
+            }
+            compare(regressions, name, "p50", previous.getP50Millis(), current.getP50Millis(), threshold,
+                    minDeltaMillis);
+            compare(regressions, name, "p99", previous.getP99Millis(), current.getP99Millis(), threshold,
+                    minDeltaMillis);
+            compare(regressions, name, "p999", previous.getP999Millis(), current.getP999Millis(), threshold,
+                    minDeltaMillis);
+        });
+        return regressions;
+    }
+
+    private static void compare(List<String> regressions, String name, String percentile, double baselineMillis,
+                                double currentMillis, double threshold, double minDeltaMillis) {
+        double delta = currentMillis - baselineMillis;
+        if (delta > minDeltaMillis && delta > baselineMillis * threshold) {
+            regressions.add(String.format("%s %s: %.2f ms -> %.2f ms (+%.0f%%)", name, percentile, baselineMillis,
+                    currentMillis, baselineMillis == 0 ? 100.0 : delta * 100 / baselineMillis));
+        }
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public void setRate(double rate) {
+        this.rate = rate;
+    }
+
+    public long getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public void setDurationSeconds(long durationSeconds) {
+        this.durationSeconds = durationSeconds;
+    }
+
+    public Map<String, Integer> getMix() {
+        return mix;
+    }
+
+    public void setMix(Map<String, Integer> mix) {
+        this.mix = mix;
+    }
+
+    public Map<String, OpenModelLoadGenerator.OperationResult> getOperations() {
+        return operations;
+    }
+
+    public void setOperations(Map<String, OpenModelLoadGenerator.OperationResult> operations) {
+        this.operations = operations;
+    }
+}
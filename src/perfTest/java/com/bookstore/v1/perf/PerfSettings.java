@@ -0,0 +1,86 @@
+package com.bookstore.v1.perf;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// every knob of the harness is a perf.* system property, ./gradlew perfTest -Dperf.rate=500 passes them through
+public class PerfSettings {
+    private final String mongodbUrl = System.getProperty("perf.mongodb.url");
+    private final double rate = Double.parseDouble(System.getProperty("perf.rate", "200"));
+    private final Duration warmup = Duration.ofSeconds(Long.parseLong(System.getProperty("perf.warmup", "10")));
+    private final Duration duration = Duration.ofSeconds(Long.parseLong(System.getProperty("perf.duration", "30")));
+    private final String mix = System.getProperty("perf.mix",
+            "getBook=40,getBookReviews=25,getBooksPage=15,searchBooks=10,suggestBooks=10");
+    private final int books = Integer.parseInt(System.getProperty("perf.books", "2000"));
+    private final int users = Integer.parseInt(System.getProperty("perf.users", "200"));
+    private final int reviewsPerUser = Integer.parseInt(System.getProperty("perf.reviewsPerUser", "10"));
+    private final int maxInFlight = Integer.parseInt(System.getProperty("perf.maxInFlight", "10000"));
+    // a percentile regresses when it grows by more than the threshold and by more than the minimum delta,
+    // so sub-millisecond noise does not fail the build
+    private final double regressionThreshold =
+            Double.parseDouble(System.getProperty("perf.regression.threshold", "0.2"));
+    private final double regressionMinDeltaMillis =
+            Double.parseDouble(System.getProperty("perf.regression.minDeltaMillis", "1.0"));
+    private final Path reportsDir = Path.of(System.getProperty("perf.reportsDir", "build/reports/perf"));
+    private final String baseline = System.getProperty("perf.baseline", "perf-baseline.json");
+
+    public String getMongodbUrl() {
+        return mongodbUrl;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public Duration getWarmup() {
+        return warmup;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    // operation name -> weight
+    public Map<String, Integer> getMix() {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] nameAndWeight = entry.trim().split("=");
+            weights.put(nameAndWeight[0].trim(), Integer.parseInt(nameAndWeight[1].trim()));
+        }
+        return weights;
+    }
+
+    public int getBooks() {
+        return books;
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public int getReviewsPerUser() {
+        return reviewsPerUser;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public double getRegressionThreshold() {
+        return regressionThreshold;
+    }
+
+    public double getRegressionMinDeltaMillis() {
+        return regressionMinDeltaMillis;
+    }
+
+    public Path getReportsDir() {
+        return reportsDir;
+    }
+
+    public String getBaseline() {
+        return baseline;
+    }
+}
@@ -1,8 +1,10 @@
 package com.bookstore.v1.controllers;
 
+import com.bookstore.v1.config.WebConfig;
 import com.bookstore.v1.data.Book;
 import com.bookstore.v1.data.User;
 import com.bookstore.v1.dto.BookDTO;
+import com.bookstore.v1.dto.ErrorDTO;
 import com.bookstore.v1.dto.ReviewCreationDTO;
 import com.bookstore.v1.dto.ReviewDTO;
 import com.bookstore.v1.dto.UserDTO;
@@ -11,12 +13,18 @@ import com.bookstore.v1.exception.EmptyFieldException;
 import com.bookstore.v1.exception.EntityNotFoundException;
 import com.bookstore.v1.exception.InvalidDoubleRange;
 import com.bookstore.v1.services.ReviewService;
+import com.bookstore.v1.services.Tagged;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
@@ -27,9 +35,14 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.stream.Stream;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
@@ -37,6 +50,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 class ReviewControllerTest {
     @Mock
     private ReviewService mockReviewService;
+    @Spy
+    private ObjectMapper spyObjectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
     @InjectMocks
     private ReviewController reviewControllerUnderTest;
     private MockMvc mockMvc;
@@ -44,7 +59,10 @@ class ReviewControllerTest {
 
     @BeforeEach
     public void setUp() {
-        mockMvc = MockMvcBuilders.standaloneSetup(reviewControllerUnderTest).build();
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(reviewControllerUnderTest)
+                .setControllerAdvice(new BookstoreExceptionHandler())
+                .build();
         objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
     }
@@ -53,6 +71,10 @@ class ReviewControllerTest {
     void tearDown() {
     }
 
+    private static Tagged<List<ReviewDTO>> tagged(List<ReviewDTO> reviews) {
+        return new Tagged<>(reviews, "W/\"etag\"");
+    }
+
     @Nested
     @DisplayName("Test add review endpoint")
     class TestAddReviewEndpoint {
@@ -94,7 +116,10 @@ class ReviewControllerTest {
                     .andExpect(result -> Assertions.assertTrue(
                             result.getResolvedException() instanceof EmptyFieldException))
                     .andExpect(result -> Assertions.assertEquals("Field: title is empty",
-                            Objects.requireNonNull(result.getResolvedException()).getMessage()));
+                            Objects.requireNonNull(result.getResolvedException()).getMessage()))
+                    .andExpect(result -> Assertions.assertEquals(
+                            objectMapper.writeValueAsString(new ErrorDTO(400, "Bad Request", "Field: title is empty")),
+                            result.getResponse().getContentAsString()));
         }
 
         @Test
@@ -342,7 +367,7 @@ class ReviewControllerTest {
         @Test
         @DisplayName("Test should return empty list of reviews for nonexistent reviews; status code 200")
         void test_getReviews_willReturnEmptyListForNonexistentReviews_withStatusCode200() throws Exception {
-            when(mockReviewService.getReviews()).thenReturn(Collections.emptyList());
+            when(mockReviewService.getTaggedReviews(any())).thenReturn(tagged(Collections.emptyList()));
 
             MvcResult actualResult = mockMvc.perform(get("/review/get-reviews")).andExpect(status().isOk()).andReturn();
 
@@ -365,7 +390,7 @@ class ReviewControllerTest {
                     new BookDTO(new Book("bookId2", "title2", "author2", "publisher2", "isbn2", LocalDate.now())));
             expectedReviewDTOList.add(reviewDTO2);
 
-            when(mockReviewService.getReviews()).thenReturn(expectedReviewDTOList);
+            when(mockReviewService.getTaggedReviews(any())).thenReturn(tagged(expectedReviewDTOList));
 
             MvcResult actualResult = mockMvc.perform(get("/review/get-reviews")).andExpect(status().isOk()).andReturn();
 
@@ -382,7 +407,7 @@ class ReviewControllerTest {
         void test_getBookReviews_willReturnEmptyListForExistentBookWithoutReviews_withStatusCode200() throws Exception {
             String bookId = "bookId";
 
-            when(mockReviewService.getBookReviews(bookId)).thenReturn(Collections.emptyList());
+            when(mockReviewService.getTaggedBookReviews(eq(bookId), any())).thenReturn(tagged(Collections.emptyList()));
 
             MvcResult actualResult = mockMvc
                     .perform(get("/review/get-book-reviews/{bookId}", bookId))
@@ -406,7 +431,7 @@ class ReviewControllerTest {
             reviewDTO2.setUser(new UserDTO(new User("userId2", "username2", "email2", "phoneNumber2")));
             expectedReviewDTOList.add(reviewDTO2);
 
-            when(mockReviewService.getBookReviews(bookId)).thenReturn(expectedReviewDTOList);
+            when(mockReviewService.getTaggedBookReviews(eq(bookId), any())).thenReturn(tagged(expectedReviewDTOList));
 
             MvcResult actualResult = mockMvc
                     .perform(get("/review/get-book-reviews/{bookId}", bookId))
@@ -417,13 +442,44 @@ class ReviewControllerTest {
                     actualResult.getResponse().getContentAsString());
         }
 
+        @Test
+        @DisplayName("Test should return the etag of the reviews with the list; status code 200")
+        void test_getBookReviews_willReturnETag_withStatusCode200() throws Exception {
+            String bookId = "bookId";
+
+            when(mockReviewService.getTaggedBookReviews(eq(bookId), any())).thenReturn(tagged(Collections.emptyList()));
+
+            mockMvc
+                    .perform(get("/review/get-book-reviews/{bookId}", bookId))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", "W/\"etag\""));
+        }
+
+        @Test
+        @DisplayName("Test should not send the reviews for a matching etag; status code 304")
+        void test_getBookReviews_willNotSendReviewsForMatchingETag_withStatusCode304() throws Exception {
+            String bookId = "bookId";
+
+            when(mockReviewService.getTaggedBookReviews(eq(bookId), any())).thenReturn(tagged(List.of(
+                    new ReviewDTO("reviewId", "title", "description", 5.0, "userId", "bookId"))));
+
+            MvcResult actualResult = mockMvc
+                    .perform(get("/review/get-book-reviews/{bookId}", bookId).header("If-None-Match", "W/\"etag\""))
+                    .andExpect(status().isNotModified())
+                    .andReturn();
+
+            Assertions.assertEquals("", actualResult.getResponse().getContentAsString());
+            verify(mockReviewService).getTaggedBookReviews(eq(bookId), any());
+        }
+
         @Test
         @DisplayName("Test should return entity not found exception for nonexistent book; status code 400")
         void test_getBookReviews_willThrowEntityNotFoundExceptionForNonexistentBook_withStatusCode400() throws
                 Exception {
             String bookId = "bookId";
 
-            when(mockReviewService.getBookReviews(bookId)).thenThrow(new EntityNotFoundException("book"));
+            when(mockReviewService.getTaggedBookReviews(eq(bookId), any()))
+                    .thenThrow(new EntityNotFoundException("book"));
 
             mockMvc
                     .perform(get("/review/get-book-reviews/{bookId}", bookId))
@@ -435,6 +491,79 @@ class ReviewControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("Test response formats")
+    class TestResponseFormats {
+        private final WebConfig webConfig = new WebConfig();
+        private MockMvc negotiatingMockMvc;
+
+        @BeforeEach
+        public void setUp() {
+            negotiatingMockMvc = MockMvcBuilders
+                    .standaloneSetup(reviewControllerUnderTest)
+                    .setControllerAdvice(new BookstoreExceptionHandler())
+                    .setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper),
+                            webConfig.smileHttpMessageConverter(), webConfig.cborHttpMessageConverter())
+                    .build();
+        }
+
+        private void assertSameReviews(List<ReviewDTO> expectedReviewDTOList, ObjectMapper binaryMapper,
+                                       String accept) throws Exception {
+            MvcResult actualResult = negotiatingMockMvc
+                    .perform(get("/review/get-book-reviews/{bookId}", "bookId").accept(accept))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(accept))
+                    .andReturn();
+
+            Assertions.assertEquals(objectMapper.valueToTree(expectedReviewDTOList),
+                    binaryMapper.readTree(actualResult.getResponse().getContentAsByteArray()));
+        }
+
+        @Test
+        @DisplayName("Test should return json without an accept header; status code 200")
+        void test_getBookReviews_willReturnJsonByDefault_withStatusCode200() throws Exception {
+            when(mockReviewService.getTaggedBookReviews(eq("bookId"), any()))
+                    .thenReturn(tagged(Collections.emptyList()));
+
+            negotiatingMockMvc
+                    .perform(get("/review/get-book-reviews/{bookId}", "bookId"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+        }
+
+        @Test
+        @DisplayName("Test should write the reviews as json with the shared mapper; status code 200")
+        void test_getBookReviews_willWriteReviewsAsJson_withStatusCode200() throws Exception {
+            ReviewDTO reviewDTO = new ReviewDTO("reviewId", "title", "description", 5.0, "userId", "bookId");
+            reviewDTO.setUser(new UserDTO(new User("userId", "username", "email", "phoneNumber")));
+            List<ReviewDTO> expectedReviewDTOList = List.of(reviewDTO);
+
+            when(mockReviewService.getTaggedBookReviews(eq("bookId"), any())).thenReturn(tagged(expectedReviewDTOList));
+
+            MvcResult actualResult = negotiatingMockMvc
+                    .perform(get("/review/get-book-reviews/{bookId}", "bookId"))
+                    .andExpect(status().isOk())
+                    .andReturn();
+
+            Assertions.assertEquals(objectMapper.writeValueAsString(expectedReviewDTOList),
+                    actualResult.getResponse().getContentAsString());
+        }
+
+        @Test
+        @DisplayName("Test should return the reviews as smile and cbor when asked for; status code 200")
+        void test_getBookReviews_willReturnSmileAndCbor_withStatusCode200() throws Exception {
+            List<ReviewDTO> expectedReviewDTOList = List.of(
+                    new ReviewDTO("reviewId", "title", "description", 5.0, "userId", "bookId"));
+
+            when(mockReviewService.getTaggedBookReviews(eq("bookId"), any())).thenReturn(tagged(expectedReviewDTOList));
+
+            assertSameReviews(expectedReviewDTOList, new ObjectMapper(new SmileFactory()),
+                    "application/x-jackson-smile");
+            assertSameReviews(expectedReviewDTOList, new ObjectMapper(new CBORFactory()),
+                    MediaType.APPLICATION_CBOR_VALUE);
+        }
+    }
+
     @Nested
     @DisplayName("Test get user reviews endpoint")
     class TestGetUserReviewsEndpoint {
@@ -443,7 +572,7 @@ class ReviewControllerTest {
         void test_getUserReviews_willReturnEmptyListForExistentUserWithoutReviews_withStatusCode200() throws Exception {
             String userId = "userId";
 
-            when(mockReviewService.getUserReviews(userId)).thenReturn(Collections.emptyList());
+            when(mockReviewService.getTaggedUserReviews(eq(userId), any())).thenReturn(tagged(Collections.emptyList()));
 
             MvcResult actualResult = mockMvc
                     .perform(get("/review/get-user-reviews/{userId}", userId))
@@ -469,7 +598,7 @@ class ReviewControllerTest {
                     new BookDTO(new Book("bookId2", "title2", "author2", "publisher2", "isbn2", LocalDate.now())));
             expectedReviewDTOList.add(reviewDTO2);
 
-            when(mockReviewService.getUserReviews(userId)).thenReturn(expectedReviewDTOList);
+            when(mockReviewService.getTaggedUserReviews(eq(userId), any())).thenReturn(tagged(expectedReviewDTOList));
 
             MvcResult actualResult = mockMvc
                     .perform(get("/review/get-user-reviews/{userId}", userId))
@@ -486,7 +615,8 @@ class ReviewControllerTest {
                 Exception {
             String userId = "userId";
 
-            when(mockReviewService.getUserReviews(userId)).thenThrow(new EntityNotFoundException("user"));
+            when(mockReviewService.getTaggedUserReviews(eq(userId), any()))
+                    .thenThrow(new EntityNotFoundException("user"));
 
             mockMvc
                     .perform(get("/review/get-user-reviews/{userId}", userId))
@@ -497,4 +627,28 @@ class ReviewControllerTest {
                             Objects.requireNonNull(result.getResolvedException()).getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("Test export reviews endpoint")
+    class TestExportReviewsEndpoint {
+        @Test
+        @DisplayName("Test should stream reviews as newline delimited json; status code 200")
+        void test_exportReviews_willStreamReviewsAsNewlineDelimitedJson_withStatusCode200() throws Exception {
+            ReviewDTO reviewDTO1 = new ReviewDTO("reviewId", "title", "description", 5.0, "userId", "bookId");
+            ReviewDTO reviewDTO2 = new ReviewDTO("reviewId2", "title2", "description2", 4.0, "userId2", "bookId2");
+
+            when(mockReviewService.streamReviews()).thenReturn(Stream.of(reviewDTO1, reviewDTO2));
+
+            MvcResult actualResult = mockMvc
+                    .perform(get("/review/get-reviews").accept(MediaType.APPLICATION_NDJSON))
+                    .andExpect(request().asyncStarted())
+                    .andDo(MvcResult::getAsyncResult)
+                    .andExpect(status().isOk())
+                    .andReturn();
+
+            Assertions.assertEquals(objectMapper.writeValueAsString(reviewDTO1) + "\n" +
+                                    objectMapper.writeValueAsString(reviewDTO2) + "\n",
+                    actualResult.getResponse().getContentAsString());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.bookstore.v1.dto;
+
+import com.bookstore.v1.config.AppConfig;
+import com.bookstore.v1.exception.InvalidFieldException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.*;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+class FieldSelectionTest {
+    private final ObjectMapper objectMapper = new AppConfig().getObjectMapper();
+
+    private String write(MappingJacksonValue value) throws Exception {
+        // the message converter only sets filters when the value carries some
+        return value.getFilters() == null
+                ? objectMapper.writeValueAsString(value.getValue())
+                : objectMapper.writer(value.getFilters()).writeValueAsString(value.getValue());
+    }
+
+    private ReviewDTO review() {
+        ReviewDTO reviewDTO = new ReviewDTO("reviewId", "title", "description", 4.5, "userId", "bookId");
+        reviewDTO.setUser(new UserDTO("userId", "userName", "email", "phoneNumber"));
+        reviewDTO.setBook(new BookDTO("bookId", "bookTitle", "author", "publisher", "isbn",
+                LocalDate.of(2020, 1, 1)));
+        return reviewDTO;
+    }
+
+    @Nested
+    @DisplayName("Tests for parsing the fields parameter")
+    class TestParse {
+        @Test
+        @DisplayName("Test should select every field without a fields parameter")
+        void test_parse_willSelectEveryFieldWithoutParameter() {
+            FieldSelection actualSelection = FieldSelection.forReviews(" ");
+
+            Assertions.assertTrue(actualSelection.isAll());
+            Assertions.assertTrue(actualSelection.includes("user"));
+            Assertions.assertEquals("*", actualSelection.toString());
+        }
+
+        @Test
+        @DisplayName("Test should select top level and nested fields")
+        void test_parse_willSelectTopLevelAndNestedFields() {
+            FieldSelection actualSelection = FieldSelection.forReviews("rating, id,user.userName,");
+
+            Assertions.assertEquals(Set.of("id", "rating", "user"), actualSelection.fields());
+            Assertions.assertFalse(actualSelection.includes("book"));
+            Assertions.assertEquals("id,rating,user.userName", actualSelection.toString());
+        }
+
+        @Test
+        @DisplayName("Test should throw invalid field exception for unknown fields")
+        void test_parse_willThrowInvalidFieldExceptionForUnknownFields() {
+            InvalidFieldException actualException = Assertions.assertThrows(InvalidFieldException.class,
+                    () -> FieldSelection.forReviews("id,user.password"));
+            Assertions.assertEquals("Field: user.password can not be selected", actualException.getMessage());
+            Assertions.assertThrows(InvalidFieldException.class, () -> FieldSelection.forBooks("reviews"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests for apply method")
+    class TestApplyMethod {
+        @Test
+        @DisplayName("Test should write only the selected fields")
+        void test_apply_willWriteOnlySelectedFields() throws Exception {
+            MappingJacksonValue actualValue = FieldSelection.forReviews("id,title,rating,user.userName")
+                    .apply(List.of(review()));
+
+            Assertions.assertEquals("[{\"id\":\"reviewId\",\"title\":\"title\",\"rating\":4.5," +
+                                    "\"user\":{\"userName\":\"userName\"}}]", write(actualValue));
+        }
+
+        @Test
+        @DisplayName("Test should write every field without a selection")
+        void test_apply_willWriteEveryFieldWithoutSelection() throws Exception {
+            MappingJacksonValue actualValue = FieldSelection.forReviews(null).apply(review());
+
+            Assertions.assertEquals(objectMapper.writeValueAsString(review()), write(actualValue));
+            Assertions.assertTrue(write(actualValue).contains("\"phoneNumber\":\"phoneNumber\""));
+        }
+    }
+}
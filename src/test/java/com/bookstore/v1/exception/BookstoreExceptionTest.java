@@ -0,0 +1,34 @@
+package com.bookstore.v1.exception;
+
+import org.junit.jupiter.api.*;
+
+class BookstoreExceptionTest {
+    @AfterEach
+    void tearDown() {
+        BookstoreException.setCaptureStackTraces(true);
+    }
+
+    @Test
+    @DisplayName("Test should capture the stack trace and create new instances by default")
+    void test_of_willCaptureStackTraceByDefault() {
+        EntityNotFoundException first = EntityNotFoundException.of("book");
+        EntityNotFoundException second = EntityNotFoundException.of("book");
+
+        Assertions.assertNotSame(first, second);
+        Assertions.assertTrue(first.getStackTrace().length > 0);
+    }
+
+    @Test
+    @DisplayName("Test should share one stackless instance per message when capture is disabled")
+    void test_of_willShareStacklessInstancesWhenCaptureIsDisabled() {
+        BookstoreException.setCaptureStackTraces(false);
+
+        EmptyFieldException first = EmptyFieldException.of("title");
+        EmptyFieldException second = EmptyFieldException.of("title");
+
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(0, first.getStackTrace().length);
+        Assertions.assertEquals("Field: title is empty", first.getMessage());
+        Assertions.assertNotSame(first, EmptyFieldException.of("author"));
+    }
+}
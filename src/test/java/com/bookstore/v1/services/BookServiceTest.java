@@ -0,0 +1,317 @@
+package com.bookstore.v1.services;
+
+import com.bookstore.v1.data.Book;
+import com.bookstore.v1.data.BookRatingSummary;
+import com.bookstore.v1.data.BookRepository;
+import com.bookstore.v1.dto.BookDTO;
+import com.bookstore.v1.dto.BookPageDTO;
+import com.bookstore.v1.dto.BookSearchDTO;
+import com.bookstore.v1.dto.BulkErrorDTO;
+import com.bookstore.v1.dto.BulkReportDTO;
+import com.bookstore.v1.dto.FieldSelection;
+import com.bookstore.v1.dto.RatingSummaryDTO;
+import com.bookstore.v1.exception.EmptyFieldException;
+import com.bookstore.v1.exception.EntityNotFoundException;
+import com.bookstore.v1.exception.InvalidCursorException;
+import com.bookstore.v1.exception.InvalidDoubleRange;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+class BookServiceTest {
+    @Mock
+    private BookRepository mockBookRepository;
+    @Mock
+    private MongoTemplate mockMongoTemplate;
+    @Mock
+    private BookSuggestionIndex mockBookSuggestionIndex;
+    @Mock
+    private RatingSummaryService mockRatingSummaryService;
+    @Spy
+    private RequestCoalescer spyRequestCoalescer = new RequestCoalescer(new SimpleMeterRegistry());
+    @Spy
+    private ObjectMapper spyObjectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    @Spy
+    private ETagService spyETagService = new ETagService();
+    @InjectMocks
+    private BookService bookServiceUnderTest;
+
+    @Nested
+    @DisplayName("Tests for getBooksPage method")
+    class TestGetBooksPageMethod {
+        @Test
+        @DisplayName("Test should return first page with cursor when more books exist")
+        void test_getBooksPage_willReturnFirstPageWithCursorWhenMoreBooksExist() {
+            List<Book> books = new ArrayList<>();
+            books.add(new Book("bookId1", "title1", "author1", "publisher1", "isbn1", LocalDate.now()));
+            books.add(new Book("bookId2", "title2", "author2", "publisher2", "isbn2", LocalDate.now()));
+            books.add(new Book("bookId3", "title3", "author3", "publisher3", "isbn3", LocalDate.now()));
+
+            when(mockBookRepository.findAllByOrderByIdAsc(PageRequest.of(0, 3))).thenReturn(books);
+
+            BookPageDTO actualPage = bookServiceUnderTest.getBooksPage(null, 2);
+
+            Assertions.assertEquals(2, actualPage.getBooks().size());
+            Assertions.assertEquals("bookId2", actualPage.getBooks().get(1).getId());
+            Assertions.assertNotNull(actualPage.getNextCursor());
+        }
+
+        @Test
+        @DisplayName("Test should continue after the cursor and return last page without cursor")
+        void test_getBooksPage_willContinueAfterCursorAndReturnLastPageWithoutCursor() {
+            String cursor = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString("bookId2".getBytes(StandardCharsets.UTF_8));
+            List<Book> books = new ArrayList<>();
+            books.add(new Book("bookId3", "title3", "author3", "publisher3", "isbn3", LocalDate.now()));
+
+            when(mockBookRepository.findAllByIdGreaterThanOrderByIdAsc("bookId2", PageRequest.of(0, 3)))
+                    .thenReturn(books);
+
+            BookPageDTO actualPage = bookServiceUnderTest.getBooksPage(cursor, 2);
+
+            Assertions.assertEquals(1, actualPage.getBooks().size());
+            Assertions.assertEquals("bookId3", actualPage.getBooks().get(0).getId());
+            Assertions.assertNull(actualPage.getNextCursor());
+        }
+
+        @Test
+        @DisplayName("Test should throw invalid double range exception for limit out of range")
+        void test_getBooksPage_willThrowInvalidDoubleRangeForLimitOutOfRange() {
+            Assertions.assertThrows(InvalidDoubleRange.class,
+                    () -> bookServiceUnderTest.getBooksPage(null, BookService.MAX_PAGE_LIMIT + 1));
+        }
+
+        @Test
+        @DisplayName("Test should throw invalid cursor exception for malformed cursor")
+        void test_getBooksPage_willThrowInvalidCursorExceptionForMalformedCursor() {
+            InvalidCursorException actualException = Assertions.assertThrows(InvalidCursorException.class,
+                    () -> bookServiceUnderTest.getBooksPage("not base64!", 10));
+            Assertions.assertEquals("Cursor: not base64! is invalid", actualException.getMessage());
+        }
+
+        @Test
+        @DisplayName("Test should fill the ratings from the summaries when rating is selected")
+        void test_getBooksPage_willFillSelectedRatingsFromSummaries() {
+            List<Book> books = new ArrayList<>();
+            books.add(new Book("bookId1", "title1", null, null, null, null));
+            books.add(new Book("bookId2", "title2", null, null, null, null));
+            BookRatingSummary summary = new BookRatingSummary("bookId1");
+            summary.setCount(1);
+            summary.setSum(4.0);
+
+            when(mockMongoTemplate.find(any(Query.class), eq(Book.class))).thenReturn(books);
+            when(mockRatingSummaryService.getRatingSummaries(List.of("bookId1", "bookId2"))).thenReturn(Map.of(
+                    "bookId1", new RatingSummaryDTO(summary),
+                    "bookId2", new RatingSummaryDTO(new BookRatingSummary("bookId2"))));
+
+            BookPageDTO actualPage = bookServiceUnderTest.getBooksPage(null, 2,
+                    FieldSelection.forBooks("id,title,rating"));
+
+            Assertions.assertEquals(4.0, actualPage.getBooks().get(0).getRating().getAverage());
+            Assertions.assertEquals(0L, actualPage.getBooks().get(1).getRating().getCount());
+            ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+            verify(mockMongoTemplate).find(query.capture(), eq(Book.class));
+            Assertions.assertFalse(query.getValue().getFieldsObject().containsKey("rating"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests for addBooks method")
+    class TestAddBooksMethod {
+        private static final String VALID_BOOK =
+                "{\"title\":\"title\",\"author\":\"author\",\"publisher\":\"publisher\",\"isbn\":\"isbn\"," +
+                "\"publishedDate\":\"2020-01-01\"}";
+
+        @Test
+        @DisplayName("Test should insert valid records in batches and report invalid ones")
+        @SuppressWarnings("unchecked")
+        void test_addBooks_willInsertValidRecordsInBatchesAndReportInvalidOnes() throws Exception {
+            ReflectionTestUtils.setField(bookServiceUnderTest, "bulkBatchSize", 2);
+            BulkOperations mockBulkOperations = mock(BulkOperations.class);
+            when(mockMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Book.class))
+                    .thenReturn(mockBulkOperations);
+            when(mockBulkOperations.insert(anyList())).thenReturn(mockBulkOperations);
+            String body = VALID_BOOK + "\n{\"title\":\"title\"}\n" + VALID_BOOK + "\n" + VALID_BOOK + "\n";
+
+            BulkReportDTO actualReport = bookServiceUnderTest.addBooks(
+                    new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+            Assertions.assertEquals(4L, actualReport.getReceived());
+            Assertions.assertEquals(3L, actualReport.getInserted());
+            Assertions.assertEquals(List.of(new BulkErrorDTO(1L, "Field: author is empty")),
+                    actualReport.getErrors());
+            ArgumentCaptor<List<Book>> batches = ArgumentCaptor.forClass(List.class);
+            verify(mockBulkOperations, times(2)).insert(batches.capture());
+            verify(mockBulkOperations, times(2)).execute();
+            verify(mockBookSuggestionIndex, times(3)).index(any(Book.class));
+        }
+
+        @Test
+        @DisplayName("Test should read a json array body")
+        void test_addBooks_willReadJsonArrayBody() throws Exception {
+            ReflectionTestUtils.setField(bookServiceUnderTest, "bulkBatchSize", 100);
+            BulkOperations mockBulkOperations = mock(BulkOperations.class);
+            when(mockMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Book.class))
+                    .thenReturn(mockBulkOperations);
+            when(mockBulkOperations.insert(anyList())).thenReturn(mockBulkOperations);
+            String body = "[" + VALID_BOOK + "," + VALID_BOOK + "]";
+
+            BulkReportDTO actualReport = bookServiceUnderTest.addBooks(
+                    new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+            Assertions.assertEquals(2L, actualReport.getReceived());
+            Assertions.assertEquals(2L, actualReport.getInserted());
+            Assertions.assertEquals(0L, actualReport.getFailed());
+        }
+
+        @Test
+        @DisplayName("Test should report null records instead of failing the import")
+        void test_addBooks_willReportNullRecords() throws Exception {
+            ReflectionTestUtils.setField(bookServiceUnderTest, "bulkBatchSize", 100);
+            BulkOperations mockBulkOperations = mock(BulkOperations.class);
+            when(mockMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Book.class))
+                    .thenReturn(mockBulkOperations);
+            when(mockBulkOperations.insert(anyList())).thenReturn(mockBulkOperations);
+            String body = VALID_BOOK + "\nnull\n" + VALID_BOOK + "\n";
+
+            BulkReportDTO actualReport = bookServiceUnderTest.addBooks(
+                    new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+            Assertions.assertEquals(3L, actualReport.getReceived());
+            Assertions.assertEquals(2L, actualReport.getInserted());
+            Assertions.assertEquals(List.of(new BulkErrorDTO(1L, "empty record")), actualReport.getErrors());
+        }
+
+        @Test
+        @DisplayName("Test should keep the first errors and count the rest")
+        void test_addBooks_willTruncateErrors() throws Exception {
+            ReflectionTestUtils.setField(bookServiceUnderTest, "bulkBatchSize", 100);
+            String body = "null\n".repeat(BulkReportDTO.MAX_ERRORS + 5);
+
+            BulkReportDTO actualReport = bookServiceUnderTest.addBooks(
+                    new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+            Assertions.assertEquals(BulkReportDTO.MAX_ERRORS + 5L, actualReport.getFailed());
+            Assertions.assertEquals(BulkReportDTO.MAX_ERRORS, actualReport.getErrors().size());
+            Assertions.assertEquals(5L, actualReport.getErrorsTruncated());
+        }
+
+        @Test
+        @DisplayName("Test should refuse to start with a batch size below 1")
+        void test_checkBulkBatchSize_willRejectNonPositiveBatchSize() {
+            ReflectionTestUtils.setField(bookServiceUnderTest, "bulkBatchSize", 0);
+
+            Assertions.assertThrows(IllegalStateException.class, () -> bookServiceUnderTest.checkBulkBatchSize());
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests for searchBooks method")
+    class TestSearchBooksMethod {
+        @Test
+        @DisplayName("Test should return the ranked page and tell whether more results exist")
+        void test_searchBooks_willReturnRankedPageWithNextFlag() {
+            List<Book> books = new ArrayList<>();
+            books.add(new Book("bookId1", "title1", "author1", "publisher1", "isbn1", LocalDate.now()));
+            books.add(new Book("bookId2", "title2", "author2", "publisher2", "isbn2", LocalDate.now()));
+            books.add(new Book("bookId3", "title3", "author3", "publisher3", "isbn3", LocalDate.now()));
+
+            when(mockMongoTemplate.find(any(Query.class), eq(Book.class))).thenReturn(books);
+
+            BookSearchDTO actualResult = bookServiceUnderTest.searchBooks("title", 1, 2);
+
+            Assertions.assertEquals(2, actualResult.getBooks().size());
+            Assertions.assertEquals("bookId1", actualResult.getBooks().get(0).getId());
+            Assertions.assertTrue(actualResult.getHasNext());
+            ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+            verify(mockMongoTemplate).find(query.capture(), eq(Book.class));
+            Assertions.assertEquals(2L, query.getValue().getSkip());
+            Assertions.assertEquals(3, query.getValue().getLimit());
+        }
+
+        @Test
+        @DisplayName("Test should throw empty field exception for blank query")
+        void test_searchBooks_willThrowEmptyFieldExceptionForBlankQuery() {
+            EmptyFieldException actualException = Assertions.assertThrows(EmptyFieldException.class,
+                    () -> bookServiceUnderTest.searchBooks(" ", 0, 20));
+            Assertions.assertEquals("Field: query is empty", actualException.getMessage());
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests for getBookById method")
+    class TestGetBookByIdMethod {
+        @Test
+        @DisplayName("Test should take the entity tag from the book and rating summary the body was built from")
+        void test_getTaggedBookById_willTakeETagFromLoadedBook() {
+            Book book = new Book("bookId", "title", "author", "publisher", "isbn", LocalDate.now());
+            book.setVersion(1L);
+            Book updatedBook = new Book("bookId", "new title", "author", "publisher", "isbn", LocalDate.now());
+            updatedBook.setVersion(2L);
+            BookRatingSummary summary = new BookRatingSummary("bookId");
+            summary.setCount(1);
+            summary.setSum(4.0);
+            BookRatingSummary ratedSummary = new BookRatingSummary("bookId");
+            ratedSummary.setCount(2);
+            ratedSummary.setSum(9.0);
+            FieldSelection selection = FieldSelection.forBooks(null);
+
+            when(mockBookRepository.findById("bookId")).thenReturn(Optional.of(book)).thenReturn(Optional.of(book))
+                    .thenReturn(Optional.of(book)).thenReturn(Optional.of(updatedBook));
+            when(mockRatingSummaryService.getRatingSummary("bookId")).thenReturn(new RatingSummaryDTO(summary))
+                    .thenReturn(new RatingSummaryDTO(ratedSummary));
+
+            Tagged<BookDTO> first = bookServiceUnderTest.getTaggedBookById("bookId", true, selection);
+            Tagged<BookDTO> rated = bookServiceUnderTest.getTaggedBookById("bookId", true, selection);
+            Tagged<BookDTO> otherSelection = bookServiceUnderTest.getTaggedBookById("bookId", false,
+                    FieldSelection.forBooks("title"));
+            Tagged<BookDTO> updated = bookServiceUnderTest.getTaggedBookById("bookId", false,
+                    FieldSelection.forBooks("title"));
+
+            Assertions.assertEquals(new RatingSummaryDTO(summary), first.getBody().getRating());
+            Assertions.assertTrue(first.getETag().startsWith("W/\""));
+            Assertions.assertNotEquals(first.getETag(), rated.getETag());
+            Assertions.assertNotEquals(first.getETag(), otherSelection.getETag());
+            Assertions.assertNotEquals(otherSelection.getETag(), updated.getETag());
+            Assertions.assertEquals("new title", updated.getBody().getTitle());
+            verify(mockRatingSummaryService, times(2)).getRatingSummary("bookId");
+            verifyNoInteractions(mockMongoTemplate);
+        }
+
+        @Test
+        @DisplayName("Test should throw entity not found exception for nonexistent book")
+        void test_getTaggedBookById_willThrowEntityNotFoundExceptionForNonexistentBook() {
+            when(mockBookRepository.findById("bookId")).thenReturn(Optional.empty());
+
+            EntityNotFoundException actualException = Assertions.assertThrows(EntityNotFoundException.class,
+                    () -> bookServiceUnderTest.getTaggedBookById("bookId", false, FieldSelection.forBooks(null)));
+            Assertions.assertEquals("Entity: book was not found", actualException.getMessage());
+        }
+    }
+}
@@ -28,8 +28,9 @@ public class BookServiceTestIT {
     public void setUp() {
 //        bookRepository.deleteAll();
 
-        book1 = new Book("31", "Mobydick", "Herman", "Adevarul", "cod", LocalDate.now());
-        bookRepository.save(book1);
+        // versioned, so the fixed id is saved fresh instead of inserted again
+        bookRepository.deleteById("31");
+        book1 = bookRepository.save(new Book("31", "Mobydick", "Herman", "Adevarul", "cod", LocalDate.now()));
     }
 
     @Test
@@ -51,6 +52,7 @@ public class BookServiceTestIT {
     public void testUpdateBook() {
         Book book = new Book("31", "Mobydick", "Herman", "Adevarul", "cod", LocalDate.now());
         book.setTitle("Mobydick");
+        book.setVersion(book1.getVersion());
         book = bookRepository.save(book);
 
         BookDTO dto = new BookDTO(book.getId(), "Updated bookTitle", book.getAuthor(), book.getPublisher(), book.getIsbn(), book.getPublishedDate());
@@ -0,0 +1,124 @@
+package com.bookstore.v1.services;
+
+import com.bookstore.v1.data.Book;
+import com.bookstore.v1.dto.BookSuggestionDTO;
+import org.junit.jupiter.api.*;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BookSuggestionIndexTest {
+    private BookSuggestionIndex bookSuggestionIndexUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        bookSuggestionIndexUnderTest = new BookSuggestionIndex();
+        bookSuggestionIndexUnderTest.index(
+                new Book("bookId1", "The Hobbit", "J. R. R. Tolkien", "publisher", "isbn1", LocalDate.now()));
+        bookSuggestionIndexUnderTest.index(
+                new Book("bookId2", "The Silmarillion", "J. R. R. Tolkien", "publisher", "isbn2", LocalDate.now()));
+        bookSuggestionIndexUnderTest.index(
+                new Book("bookId3", "Les Misérables", "Victor Hugo", "publisher", "isbn3", LocalDate.now()));
+    }
+
+    @Nested
+    @DisplayName("Tests for suggest method")
+    class TestSuggestMethod {
+        @Test
+        @DisplayName("Test should match the start of any word ignoring case and accents")
+        void test_suggest_willMatchAnyWordStartIgnoringCaseAndAccents() {
+            Assertions.assertEquals(List.of(new BookSuggestionDTO("The Hobbit", "title", "bookId1")),
+                    bookSuggestionIndexUnderTest.suggest("HOB", 10));
+            Assertions.assertEquals(List.of(new BookSuggestionDTO("Les Misérables", "title", "bookId3")),
+                    bookSuggestionIndexUnderTest.suggest("  mise", 10));
+        }
+
+        @Test
+        @DisplayName("Test should suggest an author shared by several books once")
+        void test_suggest_willSuggestSharedAuthorOnce() {
+            List<BookSuggestionDTO> actualSuggestions = bookSuggestionIndexUnderTest.suggest("tolk", 10);
+
+            Assertions.assertEquals(1, actualSuggestions.size());
+            Assertions.assertEquals("J. R. R. Tolkien", actualSuggestions.get(0).getText());
+        }
+
+        @Test
+        @DisplayName("Test should return at most limit suggestions in order")
+        void test_suggest_willReturnAtMostLimitSuggestions() {
+            List<BookSuggestionDTO> actualSuggestions = bookSuggestionIndexUnderTest.suggest("the", 1);
+
+            Assertions.assertEquals(List.of(new BookSuggestionDTO("The Hobbit", "title", "bookId1")),
+                    actualSuggestions);
+        }
+
+        @Test
+        @DisplayName("Test should return no suggestions for a blank prefix")
+        void test_suggest_willReturnNothingForBlankPrefix() {
+            Assertions.assertTrue(bookSuggestionIndexUnderTest.suggest(" ", 10).isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests for index and remove methods")
+    class TestIndexAndRemoveMethods {
+        @Test
+        @DisplayName("Test should replace the old title when a book is indexed again")
+        void test_index_willReplaceOldTitle() {
+            bookSuggestionIndexUnderTest.index(
+                    new Book("bookId1", "There and Back Again", "J. R. R. Tolkien", "publisher", "isbn1",
+                            LocalDate.now()));
+
+            Assertions.assertTrue(bookSuggestionIndexUnderTest.suggest("hobbit", 10).isEmpty());
+            Assertions.assertEquals(List.of(new BookSuggestionDTO("There and Back Again", "title", "bookId1")),
+                    bookSuggestionIndexUnderTest.suggest("back", 10));
+        }
+
+        @Test
+        @DisplayName("Test should forget a removed book")
+        void test_remove_willForgetRemovedBook() {
+            bookSuggestionIndexUnderTest.remove("bookId3");
+
+            Assertions.assertTrue(bookSuggestionIndexUnderTest.suggest("hugo", 10).isEmpty());
+            Assertions.assertTrue(bookSuggestionIndexUnderTest.suggest("les", 10).isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests for rebuild method")
+    class TestRebuildMethod {
+        @Test
+        @DisplayName("Test should keep the changes made while the books were streamed")
+        @SuppressWarnings("unchecked")
+        void test_rebuild_willKeepChangesMadeDuringRebuild() {
+            MongoTemplate mockMongoTemplate = mock(MongoTemplate.class);
+            CloseableIterator<Book> mockBooks = mock(CloseableIterator.class);
+            ReflectionTestUtils.setField(bookSuggestionIndexUnderTest, "mongoTemplate", mockMongoTemplate);
+            when(mockMongoTemplate.stream(any(Query.class), eq(Book.class))).thenReturn(mockBooks);
+            doAnswer(invocation -> {
+                Consumer<Book> rebuilt = invocation.getArgument(0);
+                rebuilt.accept(new Book("bookId1", "The Hobbit", "J. R. R. Tolkien", "publisher", "isbn1",
+                        LocalDate.now()));
+                // a delete and an insert arrive while the stream is still read
+                bookSuggestionIndexUnderTest.remove("bookId1");
+                bookSuggestionIndexUnderTest.index(
+                        new Book("bookId4", "Dune", "Frank Herbert", "publisher", "isbn4", LocalDate.now()));
+                return null;
+            }).when(mockBooks).forEachRemaining(any());
+
+            bookSuggestionIndexUnderTest.rebuild();
+
+            Assertions.assertTrue(bookSuggestionIndexUnderTest.suggest("hobbit", 10).isEmpty());
+            Assertions.assertEquals(List.of(new BookSuggestionDTO("Dune", "title", "bookId4")),
+                    bookSuggestionIndexUnderTest.suggest("dune", 10));
+        }
+    }
+}
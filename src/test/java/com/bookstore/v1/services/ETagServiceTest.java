@@ -0,0 +1,90 @@
+package com.bookstore.v1.services;
+
+import com.bookstore.v1.data.*;
+import com.bookstore.v1.dto.FieldSelection;
+import com.bookstore.v1.dto.RatingSummaryDTO;
+import org.junit.jupiter.api.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+class ETagServiceTest {
+    private final ETagService eTagServiceUnderTest = new ETagService();
+
+    private static Book book(Long version) {
+        Book book = new Book("bookId", "title", "author", "publisher", "isbn", LocalDate.now());
+        book.setVersion(version);
+        return book;
+    }
+
+    private static Wishlist wishlist(String id, Long version) {
+        Wishlist wishlist = new Wishlist(id, "title");
+        wishlist.setVersion(version);
+        return wishlist;
+    }
+
+    @Nested
+    @DisplayName("Tests for getBookETag method")
+    class TestGetBookETagMethod {
+        @Test
+        @DisplayName("Test should derive the tag from the version of the book and the selection")
+        void test_getBookETag_willDeriveTagFromBookVersion() {
+            FieldSelection selection = FieldSelection.forBooks(null);
+
+            String firstTag = eTagServiceUnderTest.getBookETag(book(1L), null, selection);
+            String sameTag = eTagServiceUnderTest.getBookETag(book(1L), null, selection);
+            String otherSelectionTag = eTagServiceUnderTest.getBookETag(book(1L), null,
+                    FieldSelection.forBooks("title"));
+            String updatedTag = eTagServiceUnderTest.getBookETag(book(2L), null, selection);
+
+            Assertions.assertTrue(firstTag.startsWith("W/\""));
+            Assertions.assertEquals(firstTag, sameTag);
+            Assertions.assertNotEquals(firstTag, otherSelectionTag);
+            Assertions.assertNotEquals(firstTag, updatedTag);
+        }
+
+        @Test
+        @DisplayName("Test should include the rating summary in the tag of books with rating")
+        void test_getBookETag_willIncludeRatingSummary() {
+            FieldSelection selection = FieldSelection.forBooks(null);
+            BookRatingSummary summary = new BookRatingSummary("bookId");
+            summary.setCount(1);
+            summary.setSum(4.0);
+
+            String firstTag = eTagServiceUnderTest.getBookETag(book(1L), new RatingSummaryDTO(summary), selection);
+            summary.setCount(2);
+            summary.setSum(9.0);
+            String ratedTag = eTagServiceUnderTest.getBookETag(book(1L), new RatingSummaryDTO(summary), selection);
+            String unratedTag = eTagServiceUnderTest.getBookETag(book(1L), null, selection);
+
+            Assertions.assertNotEquals(firstTag, ratedTag);
+            Assertions.assertNotEquals(firstTag, unratedTag);
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests for getWishlistsETag method")
+    class TestGetWishlistsETagMethod {
+        @Test
+        @DisplayName("Test should change the tag when a wishlist is updated, added or removed")
+        void test_getWishlistsETag_willChangeWithVersions() {
+            FieldSelection selection = FieldSelection.forWishlists(null);
+
+            String firstTag = eTagServiceUnderTest.getWishlistsETag("user-wishlists:userId",
+                    List.of(wishlist("a", 1L), wishlist("b", 2L)), selection);
+            String sameTag = eTagServiceUnderTest.getWishlistsETag("user-wishlists:userId",
+                    List.of(wishlist("a", 1L), wishlist("b", 2L)), selection);
+            String updatedTag = eTagServiceUnderTest.getWishlistsETag("user-wishlists:userId",
+                    List.of(wishlist("a", 2L), wishlist("b", 1L)), selection);
+            String removedTag = eTagServiceUnderTest.getWishlistsETag("user-wishlists:userId",
+                    List.of(wishlist("a", 1L)), selection);
+            String otherUserTag = eTagServiceUnderTest.getWishlistsETag("user-wishlists:otherUserId",
+                    List.of(wishlist("a", 1L), wishlist("b", 2L)), selection);
+
+            Assertions.assertEquals(firstTag, sameTag);
+            Assertions.assertNotEquals(firstTag, updatedTag);
+            Assertions.assertNotEquals(firstTag, removedTag);
+            Assertions.assertNotEquals(firstTag, otherUserTag);
+        }
+    }
+}
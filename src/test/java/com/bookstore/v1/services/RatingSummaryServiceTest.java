@@ -0,0 +1,172 @@
+package com.bookstore.v1.services;
+
+import com.bookstore.v1.data.BookRatingSummary;
+import com.bookstore.v1.data.BookRatingSummaryRepository;
+import com.bookstore.v1.data.BookRepository;
+import com.bookstore.v1.data.Review;
+import com.bookstore.v1.dto.RatingSummaryDTO;
+import com.bookstore.v1.exception.EntityNotFoundException;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.*;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+class RatingSummaryServiceTest {
+    @Mock
+    private MongoTemplate mockMongoTemplate;
+    @Mock
+    private BookRatingSummaryRepository mockBookRatingSummaryRepository;
+    @Mock
+    private BookRepository mockBookRepository;
+    @InjectMocks
+    private RatingSummaryService ratingSummaryServiceUnderTest;
+
+    @Nested
+    @DisplayName("Tests for getRatingSummary method")
+    class TestGetRatingSummaryMethod {
+        @Test
+        @DisplayName("Test should return the stored summary without reading reviews")
+        void test_getRatingSummary_willReturnStoredSummary() {
+            BookRatingSummary summary = new BookRatingSummary("bookId");
+            summary.setCount(2);
+            summary.setSum(7.5);
+            summary.setMin(3.0);
+            summary.setMax(4.5);
+            summary.setHistogram(Map.of("6", 1L, "9", 1L));
+
+            when(mockBookRatingSummaryRepository.findById("bookId")).thenReturn(Optional.of(summary));
+
+            RatingSummaryDTO actualSummary = ratingSummaryServiceUnderTest.getRatingSummary("bookId");
+
+            Assertions.assertEquals(2L, actualSummary.getCount());
+            Assertions.assertEquals(3.75, actualSummary.getAverage());
+            Assertions.assertEquals(1L, actualSummary.getHistogram().get("3.0"));
+            Assertions.assertEquals(1L, actualSummary.getHistogram().get("4.5"));
+            Assertions.assertEquals(0L, actualSummary.getHistogram().get("5.0"));
+            verify(mockMongoTemplate, never()).find(any(Query.class), eq(Review.class));
+        }
+
+        @Test
+        @DisplayName("Test should rebuild a missing summary from the reviews of the book")
+        void test_getRatingSummary_willRebuildMissingSummary() {
+            when(mockBookRatingSummaryRepository.findById("bookId")).thenReturn(Optional.empty());
+            when(mockBookRepository.existsById("bookId")).thenReturn(true);
+            when(mockMongoTemplate.find(any(Query.class), eq(Review.class))).thenReturn(
+                    List.of(new Review("r1", "title", "description", 5.0),
+                            new Review("r2", "title", "description", 2.0)));
+
+            RatingSummaryDTO actualSummary = ratingSummaryServiceUnderTest.getRatingSummary("bookId");
+
+            Assertions.assertEquals(2L, actualSummary.getCount());
+            Assertions.assertEquals(3.5, actualSummary.getAverage());
+            Assertions.assertEquals(2.0, actualSummary.getMin());
+            Assertions.assertEquals(5.0, actualSummary.getMax());
+            verify(mockMongoTemplate).findAndReplace(any(Query.class), any(BookRatingSummary.class));
+        }
+
+        @Test
+        @DisplayName("Test should throw entity not found exception for nonexistent book")
+        void test_getRatingSummary_willThrowEntityNotFoundExceptionForNonexistentBook() {
+            when(mockBookRatingSummaryRepository.findById("bookId")).thenReturn(Optional.empty());
+            when(mockBookRepository.existsById("bookId")).thenReturn(false);
+
+            EntityNotFoundException actualException = Assertions.assertThrows(EntityNotFoundException.class,
+                    () -> ratingSummaryServiceUnderTest.getRatingSummary("bookId"));
+            Assertions.assertEquals("Entity: book was not found", actualException.getMessage());
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests for recordAdded method")
+    class TestRecordAddedMethod {
+        @Test
+        @DisplayName("Test should increment the existing summary in place")
+        void test_recordAdded_willIncrementExistingSummary() {
+            when(mockMongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(BookRatingSummary.class)))
+                    .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+            ratingSummaryServiceUnderTest.recordAdded("bookId", 4.5);
+
+            ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+            verify(mockMongoTemplate).updateFirst(any(Query.class), update.capture(), eq(BookRatingSummary.class));
+            Assertions.assertTrue(update.getValue().modifies("histogram.9"));
+            verify(mockMongoTemplate, never()).save(any(BookRatingSummary.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests for rebuildSummary method")
+    class TestRebuildSummaryMethod {
+        @Test
+        @DisplayName("Test should not count a review both in the rebuild and in an increment applied after it")
+        void test_rebuildSummary_willNotCountReviewTwiceWhenAddRacesRebuild() {
+            AtomicReference<String> rebuildToken = new AtomicReference<>();
+            AtomicReference<BookRatingSummary> stored = new AtomicReference<>();
+            AtomicInteger increments = new AtomicInteger();
+            AtomicBoolean added = new AtomicBoolean();
+
+            when(mockMongoTemplate.upsert(any(Query.class), any(Update.class), eq(BookRatingSummary.class)))
+                    .thenAnswer(invocation -> {
+                        Update update = invocation.getArgument(1);
+                        rebuildToken.set(update.getUpdateObject().get("$set", Document.class).getString("rebuild"));
+                        return null;
+                    });
+            when(mockMongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(BookRatingSummary.class)))
+                    .thenAnswer(invocation -> {
+                        Query query = invocation.getArgument(0);
+                        boolean pending = query.getQueryObject().containsKey("rebuild") && rebuildToken.get() != null;
+                        if (!pending) {
+                            increments.incrementAndGet();
+                        }
+                        return UpdateResult.acknowledged(pending ? 0 : 1, pending ? 0L : 1L, null);
+                    });
+            // the new review is already visible to the rebuild, its increment lands while the rebuild runs
+            when(mockMongoTemplate.find(any(Query.class), eq(Review.class))).thenAnswer(invocation -> {
+                if (added.compareAndSet(false, true)) {
+                    ratingSummaryServiceUnderTest.recordAdded("bookId", 4.0);
+                }
+                return List.of(new Review("r1", "title", "description", 2.0),
+                        new Review("r2", "title", "description", 4.0));
+            });
+            when(mockMongoTemplate.findAndReplace(any(Query.class), any(BookRatingSummary.class)))
+                    .thenAnswer(invocation -> {
+                        Query query = invocation.getArgument(0);
+                        if (!Objects.equals(rebuildToken.get(), query.getQueryObject().get("rebuild"))) {
+                            return null;
+                        }
+                        rebuildToken.set(null);
+                        stored.set(invocation.getArgument(1));
+                        return stored.get();
+                    });
+
+            ratingSummaryServiceUnderTest.rebuildSummary("bookId");
+
+            Assertions.assertEquals(0, increments.get());
+            Assertions.assertEquals(2L, stored.get().getCount());
+            Assertions.assertEquals(6.0, stored.get().getSum());
+            Assertions.assertNull(stored.get().getRebuild());
+            verify(mockMongoTemplate, times(2)).upsert(any(Query.class), any(Update.class),
+                    eq(BookRatingSummary.class));
+            verify(mockMongoTemplate, times(2)).findAndReplace(any(Query.class), any(BookRatingSummary.class));
+        }
+    }
+}
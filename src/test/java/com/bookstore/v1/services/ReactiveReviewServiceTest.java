@@ -0,0 +1,91 @@
+package com.bookstore.v1.services;
+
+import com.bookstore.v1.data.reactive.*;
+import com.bookstore.v1.exception.EntityNotFoundException;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.*;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.boot.test.context.SpringBootTest;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+class ReactiveReviewServiceTest {
+    @Mock
+    private ReactiveReviewRepository mockReactiveReviewRepository;
+    @Mock
+    private ReactiveUserRepository mockReactiveUserRepository;
+    @Mock
+    private ReactiveBookRepository mockReactiveBookRepository;
+    @InjectMocks
+    private ReactiveReviewService reactiveReviewServiceUnderTest;
+
+    @Nested
+    @DisplayName("Tests for getReviews method")
+    class TestGetReviewsMethod {
+        @Test
+        @DisplayName("Test should resolve users and books with one query per collection")
+        void test_getReviews_willResolveReferencesInBatch() {
+            String userId = new ObjectId().toHexString();
+            String bookId = new ObjectId().toHexString();
+            ReactiveUser user = new ReactiveUser();
+            user.setId(userId);
+            user.setUserName("userName");
+            ReactiveBook book = new ReactiveBook();
+            book.setId(bookId);
+            book.setTitle("title");
+
+            when(mockReactiveReviewRepository.findAll()).thenReturn(
+                    Flux.just(review("r1", userId, bookId), review("r2", userId, bookId)));
+            when(mockReactiveUserRepository.findAllById(anyIterable())).thenReturn(Flux.just(user));
+            when(mockReactiveBookRepository.findAllById(anyIterable())).thenReturn(Flux.just(book));
+
+            StepVerifier
+                    .create(reactiveReviewServiceUnderTest.getReviews())
+                    .assertNext(review -> {
+                        Assertions.assertEquals("r1", review.getId());
+                        Assertions.assertEquals("userName", review.getUser().getUserName());
+                        Assertions.assertEquals("title", review.getBook().getTitle());
+                    })
+                    .assertNext(review -> Assertions.assertEquals(bookId, review.getBookId()))
+                    .verifyComplete();
+
+            verify(mockReactiveUserRepository, times(1)).findAllById(anyIterable());
+            verify(mockReactiveBookRepository, times(1)).findAllById(anyIterable());
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests for getBookReviews method")
+    class TestGetBookReviewsMethod {
+        @Test
+        @DisplayName("Test should signal entity not found for nonexistent book")
+        void test_getBookReviews_willSignalEntityNotFoundForNonexistentBook() {
+            when(mockReactiveBookRepository.existsById("bookId")).thenReturn(Mono.just(false));
+
+            StepVerifier
+                    .create(reactiveReviewServiceUnderTest.getBookReviews("bookId"))
+                    .expectErrorSatisfies(error -> {
+                        Assertions.assertTrue(error instanceof EntityNotFoundException);
+                        Assertions.assertEquals("Entity: book was not found", error.getMessage());
+                    })
+                    .verify();
+        }
+    }
+
+    private static ReactiveReview review(String id, String userId, String bookId) {
+        ReactiveReview review = new ReactiveReview();
+        review.setId(id);
+        review.setTitle("title");
+        review.setDescription("description");
+        review.setRating(4.0);
+        review.setUser(DbRefs.of("users", userId));
+        review.setBook(DbRefs.of("books", bookId));
+        return review;
+    }
+}
@@ -0,0 +1,91 @@
+package com.bookstore.v1.services;
+
+import com.bookstore.v1.exception.EntityNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class RequestCoalescerTest {
+    private SimpleMeterRegistry meterRegistry;
+    private RequestCoalescer requestCoalescerUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        requestCoalescerUnderTest = new RequestCoalescer(meterRegistry);
+    }
+
+    private double requests(String result) {
+        return meterRegistry
+                .get(RequestCoalescer.REQUESTS_METER)
+                .tag("operation", "getBookById")
+                .tag("result", result)
+                .counter()
+                .count();
+    }
+
+    @Nested
+    @DisplayName("Tests for execute method")
+    class TestExecuteMethod {
+        @Test
+        @DisplayName("Test should share one in flight load between concurrent callers of the same key")
+        void test_execute_willShareInFlightLoadBetweenConcurrentCallers() throws Exception {
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicInteger loads = new AtomicInteger();
+            CompletableFuture<String> leader = CompletableFuture.supplyAsync(
+                    () -> requestCoalescerUnderTest.execute("getBookById", "bookId", () -> {
+                        loads.incrementAndGet();
+                        try {
+                            release.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return "book";
+                    }));
+            while (loads.get() == 0) {
+                Thread.onSpinWait();
+            }
+
+            CompletableFuture<String> follower = CompletableFuture.supplyAsync(
+                    () -> requestCoalescerUnderTest.execute("getBookById", "bookId", () -> {
+                        loads.incrementAndGet();
+                        return "other book";
+                    }));
+            while (meterRegistry.find(RequestCoalescer.REQUESTS_METER).tag("result", "collapsed").counter() == null) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            Assertions.assertEquals("book", leader.get(5, TimeUnit.SECONDS));
+            Assertions.assertEquals("book", follower.get(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(1, loads.get());
+            Assertions.assertEquals(1.0, requests("executed"));
+            Assertions.assertEquals(1.0, requests("collapsed"));
+        }
+
+        @Test
+        @DisplayName("Test should load again once the previous load completed")
+        void test_execute_willLoadAgainAfterCompletion() {
+            AtomicInteger loads = new AtomicInteger();
+
+            requestCoalescerUnderTest.execute("getBookById", "bookId", loads::incrementAndGet);
+            int actualLoad = requestCoalescerUnderTest.execute("getBookById", "bookId", loads::incrementAndGet);
+
+            Assertions.assertEquals(2, actualLoad);
+            Assertions.assertEquals(2.0, requests("executed"));
+        }
+
+        @Test
+        @DisplayName("Test should rethrow the exception of the load")
+        void test_execute_willRethrowLoadException() {
+            Assertions.assertThrows(EntityNotFoundException.class,
+                    () -> requestCoalescerUnderTest.execute("getBookById", "bookId", () -> {
+                        throw EntityNotFoundException.of("book");
+                    }));
+        }
+    }
+}
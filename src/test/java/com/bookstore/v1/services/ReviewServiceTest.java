@@ -1,22 +1,42 @@
 package com.bookstore.v1.services;
 
 import com.bookstore.v1.data.*;
+import com.bookstore.v1.dto.BulkItemResultDTO;
+import com.bookstore.v1.dto.FieldSelection;
 import com.bookstore.v1.dto.ReviewCreationDTO;
 import com.bookstore.v1.dto.ReviewDTO;
 import com.bookstore.v1.exception.DuplicateObjectException;
 import com.bookstore.v1.exception.EntityNotFoundException;
+import com.bookstore.v1.exception.InvalidDoubleRange;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
 import org.junit.jupiter.api.*;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 
 @SpringBootTest
 class ReviewServiceTest {
@@ -26,6 +46,18 @@ class ReviewServiceTest {
     private UserRepository mockUserRepository;
     @Mock
     private BookRepository mockBookRepository;
+    @Mock
+    private RatingSummaryService mockRatingSummaryService;
+    @Mock
+    private SnapshotService mockSnapshotService;
+    @Mock
+    private WriteBehindQueue mockWriteBehindQueue;
+    @Mock
+    private MongoTemplate mockMongoTemplate;
+    @Spy
+    private RequestCoalescer spyRequestCoalescer = new RequestCoalescer(new SimpleMeterRegistry());
+    @Spy
+    private ETagService spyETagService = new ETagService();
     @InjectMocks
     private ReviewService reviewServiceUnderTest;
 
@@ -47,12 +79,57 @@ class ReviewServiceTest {
 
             when(mockUserRepository.findById(userId)).thenReturn(Optional.of(user));
             when(mockBookRepository.findById(bookId)).thenReturn(Optional.of(book));
-            when(mockReviewRepository.findByUserAndBook(user, book)).thenReturn(Optional.empty());
-            when(mockReviewRepository.save(any(Review.class))).thenReturn(createdReview);
+            when(mockReviewRepository.insert(any(Review.class))).thenReturn(createdReview);
 
             ReviewDTO actualReviewDTO = reviewServiceUnderTest.addReview(reviewCreationDTO);
 
             Assertions.assertEquals(expectedReviewDTO, actualReviewDTO);
+            verify(mockRatingSummaryService).recordAdded(bookId, 5.0);
+        }
+
+        @Test
+        @DisplayName("Test should queue the insert and leave the rating summary to the flush with write-behind")
+        void test_addReview_willQueueInsertWithWriteBehind() {
+            String userId = "userId";
+            String bookId = "bookId";
+            ReviewCreationDTO reviewCreationDTO = new ReviewCreationDTO("title", "description", 5.0, userId, bookId);
+            User user = new User(userId, "userName", "email", "phoneNumber");
+            Book book = new Book(bookId, "title", "author", "publisher", "isbn", LocalDate.now());
+            CompletableFuture<Void> written = new CompletableFuture<>();
+
+            when(mockWriteBehindQueue.isEnabled()).thenReturn(true);
+            when(mockWriteBehindQueue.enqueue(eq(Review.class), any(), any(), any())).thenReturn(written);
+            when(mockUserRepository.findById(userId)).thenReturn(Optional.of(user));
+            when(mockBookRepository.findById(bookId)).thenReturn(Optional.of(book));
+
+            ReviewDTO actualReviewDTO = reviewServiceUnderTest.addReview(reviewCreationDTO);
+
+            Assertions.assertNotNull(actualReviewDTO.getId());
+            verify(mockWriteBehindQueue).acknowledge(written);
+            verify(mockReviewRepository, never()).insert(any(Review.class));
+            verify(mockRatingSummaryService, never()).recordAdded(any(), any());
+        }
+
+        @Test
+        @DisplayName("Test should throw duplicate object exception when the queued insert hits the unique index")
+        void test_addReview_willThrowDuplicateObjectExceptionForDuplicateQueuedInsert() {
+            String userId = "userId";
+            String bookId = "bookId";
+            ReviewCreationDTO reviewCreationDTO = new ReviewCreationDTO("title", "description", 5.0, userId, bookId);
+            User user = new User(userId, "userName", "email", "phoneNumber");
+            Book book = new Book(bookId, "title", "author", "publisher", "isbn", LocalDate.now());
+
+            when(mockWriteBehindQueue.isEnabled()).thenReturn(true);
+            when(mockWriteBehindQueue.enqueue(eq(Review.class), any(), any(), any()))
+                    .thenReturn(new CompletableFuture<>());
+            doThrow(new DuplicateKeyException("E11000 duplicate key error")).when(mockWriteBehindQueue)
+                    .acknowledge(any());
+            when(mockUserRepository.findById(userId)).thenReturn(Optional.of(user));
+            when(mockBookRepository.findById(bookId)).thenReturn(Optional.of(book));
+
+            DuplicateObjectException actualException = Assertions.assertThrows(DuplicateObjectException.class,
+                    () -> reviewServiceUnderTest.addReview(reviewCreationDTO));
+            Assertions.assertEquals("Object: review already exists", actualException.getMessage());
         }
 
         @Test
@@ -96,7 +173,8 @@ class ReviewServiceTest {
 
             when(mockUserRepository.findById(userId)).thenReturn(Optional.of(user));
             when(mockBookRepository.findById(bookId)).thenReturn(Optional.of(book));
-            when(mockReviewRepository.findByUserAndBook(user, book)).thenReturn(Optional.of(new Review()));
+            when(mockReviewRepository.insert(any(Review.class)))
+                    .thenThrow(new DuplicateKeyException("E11000 duplicate key error"));
 
             DuplicateObjectException actualException = Assertions.assertThrows(DuplicateObjectException.class,
                     () -> reviewServiceUnderTest.addReview(reviewCreationDTO));
@@ -104,6 +182,83 @@ class ReviewServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Tests for addReviews method")
+    class TestAddReviewsMethod {
+        @Test
+        @DisplayName("Test should insert valid reviews in one bulk write and report the rest per item")
+        @SuppressWarnings("unchecked")
+        void test_addReviews_willInsertValidReviewsAndReportTheRestPerItem() {
+            ReflectionTestUtils.setField(reviewServiceUnderTest, "bulkMaxItems", 100);
+            User user = new User("userId", "userName", "email", "phoneNumber");
+            Book book = new Book("bookId", "title", "author", "publisher", "isbn", LocalDate.now());
+            Book reviewedBook = new Book("reviewedBookId", "title", "author", "publisher", "isbn", LocalDate.now());
+            Review existingReview = new Review("existingId", "title", "description", 4.0);
+            existingReview.setUser(user);
+            existingReview.setBook(reviewedBook);
+            List<ReviewCreationDTO> reviewCreationDTOs = List.of(
+                    new ReviewCreationDTO("title", "description", 5.0, "userId", "bookId"),
+                    new ReviewCreationDTO("title", "description", 7.0, "userId", "bookId"),
+                    new ReviewCreationDTO("title", "description", 3.0, "userId", "missingBookId"),
+                    new ReviewCreationDTO("title", "description", 3.0, "userId", "reviewedBookId"),
+                    new ReviewCreationDTO("title", "description", 2.0, "userId", "bookId"));
+            BulkOperations mockBulkOperations = mock(BulkOperations.class);
+
+            when(mockUserRepository.findAllById(anyIterable())).thenReturn(List.of(user));
+            when(mockBookRepository.findAllById(anyIterable())).thenReturn(List.of(book, reviewedBook));
+            when(mockMongoTemplate.find(any(Query.class), eq(Review.class))).thenReturn(List.of(existingReview));
+            when(mockMongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Review.class))
+                    .thenReturn(mockBulkOperations);
+            when(mockBulkOperations.insert(anyList())).thenReturn(mockBulkOperations);
+
+            List<BulkItemResultDTO> actualResults = reviewServiceUnderTest.addReviews(reviewCreationDTOs);
+
+            ArgumentCaptor<List<Review>> inserted = ArgumentCaptor.forClass(List.class);
+            verify(mockBulkOperations).insert(inserted.capture());
+            verify(mockBulkOperations).execute();
+            Assertions.assertEquals(1, inserted.getValue().size());
+            Assertions.assertEquals(List.of(
+                    BulkItemResultDTO.created(0, inserted.getValue().get(0).getId()),
+                    BulkItemResultDTO.failed(1, "Field: rating must be between 0.000000 and 5.000000"),
+                    BulkItemResultDTO.failed(2, "Entity: book was not found"),
+                    BulkItemResultDTO.failed(3, "Object: review already exists"),
+                    BulkItemResultDTO.failed(4, "Object: review already exists")), actualResults);
+            verify(mockRatingSummaryService).recordAddedAll(Map.of("bookId", List.of(5.0)));
+            verify(mockUserRepository, never()).findById(any());
+            verify(mockBookRepository, never()).findById(any());
+            // only the submitted pairs are looked up, one branch per user
+            ArgumentCaptor<Query> existing = ArgumentCaptor.forClass(Query.class);
+            verify(mockMongoTemplate).find(existing.capture(), eq(Review.class));
+            List<Document> branches = (List<Document>) existing.getValue().getQueryObject().get("$or");
+            Assertions.assertEquals(1, branches.size());
+            Assertions.assertEquals(user, branches.get(0).get("user"));
+            Assertions.assertEquals(Set.of(book, reviewedBook),
+                    new HashSet<>((Collection<?>) ((Document) branches.get(0).get("book")).get("$in")));
+        }
+
+        @Test
+        @DisplayName("Test should report null items instead of failing the batch")
+        void test_addReviews_willReportNullItems() {
+            ReflectionTestUtils.setField(reviewServiceUnderTest, "bulkMaxItems", 100);
+            List<ReviewCreationDTO> reviewCreationDTOs = new ArrayList<>();
+            reviewCreationDTOs.add(null);
+
+            List<BulkItemResultDTO> actualResults = reviewServiceUnderTest.addReviews(reviewCreationDTOs);
+
+            Assertions.assertEquals(List.of(BulkItemResultDTO.failed(0, "empty item")), actualResults);
+            verify(mockMongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(Review.class));
+        }
+
+        @Test
+        @DisplayName("Test should throw invalid double range exception for an empty batch")
+        void test_addReviews_willThrowInvalidDoubleRangeForEmptyBatch() {
+            ReflectionTestUtils.setField(reviewServiceUnderTest, "bulkMaxItems", 100);
+
+            Assertions.assertThrows(InvalidDoubleRange.class, () -> reviewServiceUnderTest.addReviews(List.of()));
+            verifyNoInteractions(mockMongoTemplate);
+        }
+    }
+
     @Nested
     @DisplayName("Tests for updateReview method")
     class TestUpdateReviewMethod {
@@ -128,6 +283,7 @@ class ReviewServiceTest {
             ReviewDTO actualReviewDTO = reviewServiceUnderTest.updateReview(reviewCreationDTO);
 
             Assertions.assertEquals(updatedReview.getTitle(), actualReviewDTO.getTitle());
+            verify(mockRatingSummaryService).recordUpdated("bookId", 5.0, 1.0);
         }
 
         @Test
@@ -238,6 +394,79 @@ class ReviewServiceTest {
             List<ReviewDTO> actualReviewDTOs = reviewServiceUnderTest.getReviews();
             Assertions.assertEquals(existingReviews.size(), actualReviewDTOs.size());
         }
+
+        @Test
+        @DisplayName("Test should resolve users and books of all reviews with one query per collection")
+        void test_getReviews_willResolveReferencesWithOneQueryPerCollection() {
+            User user1 = new User("userId1", "userName1", "email1", "phoneNumber1");
+            User user2 = new User("userId2", "userName2", "email2", "phoneNumber2");
+            Book book = new Book("bookId1", "title1", "author1", "publisher1", "isbn1", LocalDate.now());
+            List<Review> existingReviews = new ArrayList<>();
+            Review review1 = new Review("reviewId1", "title1", "description1", 5.0);
+            review1.setUser(user1);
+            review1.setBook(book);
+            Review review2 = new Review("reviewId2", "title2", "description2", 4.0);
+            review2.setUser(user2);
+            review2.setBook(book);
+            existingReviews.add(review1);
+            existingReviews.add(review2);
+            List<ReviewDTO> expectedReviewDTOs = new ArrayList<>();
+            expectedReviewDTOs.add(new ReviewDTO(review1, true, true));
+            expectedReviewDTOs.add(new ReviewDTO(review2, true, true));
+
+            when(mockReviewRepository.findAll()).thenReturn(existingReviews);
+            when(mockUserRepository.findAllById(anyIterable())).thenReturn(List.of(user1, user2));
+            when(mockBookRepository.findAllById(anyIterable())).thenReturn(List.of(book));
+
+            List<ReviewDTO> actualReviewDTOs = reviewServiceUnderTest.getReviews();
+
+            Assertions.assertEquals(expectedReviewDTOs, actualReviewDTOs);
+            verify(mockUserRepository, times(1)).findAllById(anyIterable());
+            verify(mockBookRepository, times(1)).findAllById(anyIterable());
+            verify(mockUserRepository, never()).findById(any());
+            verify(mockBookRepository, never()).findById(any());
+        }
+
+        @Test
+        @DisplayName("Test should read users and books from the embedded snapshots without any query")
+        void test_getReviews_willReadEmbeddedSnapshotsWithoutQueries() {
+            Review review = new Review("reviewId1", "title1", "description1", 5.0);
+            review.setUser(new User("userId1", "userName1", "email1", "phoneNumber1"));
+            review.setBook(new Book("bookId1", "title1", "author1", "publisher1", "isbn1", LocalDate.now()));
+            review.setUserSnapshot(new UserSnapshot("userId1", "userName1"));
+            review.setBookSnapshot(new BookSnapshot("bookId1", "title1", "author1"));
+            ReviewDTO expectedReviewDTO = new ReviewDTO(review, new User("userId1", "userName1", null, null),
+                    new Book("bookId1", "title1", "author1", null, null, null));
+
+            when(mockSnapshotService.isEnabled()).thenReturn(true);
+            when(mockReviewRepository.findAll()).thenReturn(List.of(review));
+
+            List<ReviewDTO> actualReviewDTOs = reviewServiceUnderTest.getReviews();
+
+            Assertions.assertEquals(List.of(expectedReviewDTO), actualReviewDTOs);
+            verify(mockUserRepository, never()).findAllById(anyIterable());
+            verify(mockBookRepository, never()).findAllById(anyIterable());
+        }
+
+        @Test
+        @DisplayName("Test should project the selected fields and not resolve relations that were not selected")
+        void test_getReviews_willProjectSelectedFieldsWithoutResolvingRelations() {
+            Review review = new Review("reviewId1", "title1", null, 5.0);
+            ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+
+            when(mockMongoTemplate.find(query.capture(), eq(Review.class))).thenReturn(List.of(review));
+
+            List<ReviewDTO> actualReviewDTOs =
+                    reviewServiceUnderTest.getReviews(FieldSelection.forReviews("id,title,rating"));
+
+            Assertions.assertEquals(List.of(new ReviewDTO("reviewId1", "title1", null, 5.0, null, null)),
+                    actualReviewDTOs);
+            Assertions.assertEquals(new Document(Map.of("id", 1, "version", 1, "title", 1, "rating", 1)),
+                    query.getValue().getFieldsObject());
+            verify(mockReviewRepository, never()).findAll();
+            verify(mockUserRepository, never()).findAllById(anyIterable());
+            verify(mockBookRepository, never()).findAllById(anyIterable());
+        }
     }
 
     @Nested
@@ -282,6 +511,37 @@ class ReviewServiceTest {
             Assertions.assertEquals(expectedReviewDTOs, actualReviewDTOs);
         }
 
+        @Test
+        @DisplayName("Test should take the entity tag from the reviews the list was built from")
+        void test_getTaggedBookReviews_willTakeETagFromLoadedReviews() {
+            String bookId = "bookId";
+            Book book = new Book(bookId, "title", "author", "publisher", "isbn", LocalDate.now());
+            Review review = new Review("reviewId1", "title1", "description1", 5.0);
+            review.setBook(book);
+            review.setUser(new User("userId1", "userName1", "email1", "phoneNumber1"));
+            review.setVersion(1L);
+            Review updatedReview = new Review("reviewId1", "title1", "description1", 5.0);
+            updatedReview.setBook(book);
+            updatedReview.setUser(review.getUser());
+            updatedReview.setVersion(2L);
+            FieldSelection selection = FieldSelection.forReviews(null);
+
+            when(mockBookRepository.findById(bookId)).thenReturn(Optional.of(book));
+            when(mockReviewRepository.findAllByBook(book)).thenReturn(List.of(review)).thenReturn(List.of(review))
+                    .thenReturn(List.of(updatedReview));
+
+            Tagged<List<ReviewDTO>> first = reviewServiceUnderTest.getTaggedBookReviews(bookId, selection);
+            Tagged<List<ReviewDTO>> same = reviewServiceUnderTest.getTaggedBookReviews(bookId, selection);
+            Tagged<List<ReviewDTO>> updated = reviewServiceUnderTest.getTaggedBookReviews(bookId, selection);
+
+            Assertions.assertEquals(List.of(new ReviewDTO(review, true, false)), first.getBody());
+            Assertions.assertTrue(first.getETag().startsWith("W/\""));
+            Assertions.assertEquals(first.getETag(), same.getETag());
+            Assertions.assertNotEquals(first.getETag(), updated.getETag());
+            verify(mockReviewRepository, times(3)).findAllByBook(book);
+            verifyNoInteractions(mockMongoTemplate);
+        }
+
         @Test
         @DisplayName("Test should throw entity not found exception for nonexistent book")
         void test_getBookReviews_willThrowEntityNotFoundExceptionForNonexistentBook() {
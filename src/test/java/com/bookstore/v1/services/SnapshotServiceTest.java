@@ -0,0 +1,165 @@
+package com.bookstore.v1.services;
+
+import com.bookstore.v1.data.*;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.*;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+class SnapshotServiceTest {
+    @Mock
+    private MongoTemplate mockMongoTemplate;
+    @InjectMocks
+    private SnapshotService snapshotServiceUnderTest;
+
+    private static Book book(Long version) {
+        Book book = new Book("bookId", "new title", "author", "publisher", "isbn", LocalDate.now());
+        book.setVersion(version);
+        return book;
+    }
+
+    // the refreshes run on their own thread, shutting it down waits for the ones already queued
+    private void awaitRefreshes() throws InterruptedException {
+        snapshotServiceUnderTest.shutdown();
+        ((ExecutorService) ReflectionTestUtils.getField(snapshotServiceUnderTest, "refreshExecutor"))
+                .awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Nested
+    @DisplayName("Tests for refreshBook method")
+    class TestRefreshBookMethod {
+        @Test
+        @DisplayName("Test should only replace the snapshots taken from older versions of the book")
+        void test_refreshBook_willReplaceOlderSnapshotsOnly() throws InterruptedException {
+            when(mockMongoTemplate.updateMulti(any(Query.class), any(Update.class), any(Class.class)))
+                    .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+            snapshotServiceUnderTest.refreshBook(book(3L));
+            awaitRefreshes();
+
+            ArgumentCaptor<Query> reviewQueries = ArgumentCaptor.forClass(Query.class);
+            ArgumentCaptor<Update> reviewUpdates = ArgumentCaptor.forClass(Update.class);
+            verify(mockMongoTemplate, times(2)).updateMulti(reviewQueries.capture(), reviewUpdates.capture(),
+                    eq(Review.class));
+            Document snapshotQuery = reviewQueries.getAllValues().get(1).getQueryObject();
+            Assertions.assertEquals("bookId", snapshotQuery.get("bookSnapshot.bookId"));
+            Assertions.assertEquals(new Document("$not", new Document("$gte", 3L)),
+                    snapshotQuery.get("bookSnapshot.version"));
+            Document snapshotUpdate = reviewUpdates.getAllValues().get(1).getUpdateObject();
+            BookSnapshot snapshot = (BookSnapshot) snapshotUpdate.get("$set", Document.class).get("bookSnapshot");
+            Assertions.assertEquals("new title", snapshot.getTitle());
+            Assertions.assertEquals(3L, snapshot.getVersion());
+            Assertions.assertEquals(new Document("version", 1), snapshotUpdate.get("$inc"));
+
+            ArgumentCaptor<Update> wishlistUpdates = ArgumentCaptor.forClass(Update.class);
+            verify(mockMongoTemplate, times(2)).updateMulti(any(Query.class), wishlistUpdates.capture(),
+                    eq(Wishlist.class));
+            Assertions.assertEquals(new Document("snapshot.bookId", "bookId")
+                            .append("snapshot.version", new Document("$not", new Document("$gte", 3L))),
+                    wishlistUpdates.getAllValues().get(1).getArrayFilters().get(0).asDocument());
+        }
+
+        @Test
+        @DisplayName("Test should increase the versions of the referencing documents before returning")
+        void test_refreshBook_willIncreaseVersionsBeforeReturning() {
+            Book book = book(3L);
+            // the refresh itself never runs, only the increments can have run once refreshBook returns
+            ExecutorService mockRefreshExecutor = mock(ExecutorService.class);
+            ReflectionTestUtils.setField(snapshotServiceUnderTest, "refreshExecutor", mockRefreshExecutor);
+
+            snapshotServiceUnderTest.refreshBook(book);
+
+            ArgumentCaptor<Query> reviewQueries = ArgumentCaptor.forClass(Query.class);
+            ArgumentCaptor<Update> reviewUpdates = ArgumentCaptor.forClass(Update.class);
+            verify(mockMongoTemplate).updateMulti(reviewQueries.capture(), reviewUpdates.capture(),
+                    eq(Review.class));
+            Assertions.assertEquals(book, reviewQueries.getValue().getQueryObject().get("book"));
+            Assertions.assertEquals(new Document("$inc", new Document("version", 1)),
+                    reviewUpdates.getValue().getUpdateObject());
+            ArgumentCaptor<Query> wishlistQueries = ArgumentCaptor.forClass(Query.class);
+            verify(mockMongoTemplate).updateMulti(wishlistQueries.capture(), any(Update.class), eq(Wishlist.class));
+            Assertions.assertEquals(book, wishlistQueries.getValue().getQueryObject().get("books"));
+            verify(mockRefreshExecutor).execute(any(Runnable.class));
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests for refreshUser method")
+    class TestRefreshUserMethod {
+        @Test
+        @DisplayName("Test should only replace the snapshots taken from older versions of the user")
+        void test_refreshUser_willReplaceOlderSnapshotsOnly() throws InterruptedException {
+            User user = new User("userId", "new name", "email", "phoneNumber");
+            user.setVersion(2L);
+            when(mockMongoTemplate.updateMulti(any(Query.class), any(Update.class), any(Class.class)))
+                    .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+            snapshotServiceUnderTest.refreshUser(user);
+            awaitRefreshes();
+
+            ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+            verify(mockMongoTemplate, times(2)).updateMulti(queries.capture(), any(Update.class),
+                    eq(Wishlist.class));
+            Assertions.assertEquals(user, queries.getAllValues().get(0).getQueryObject().get("user"));
+            Document snapshotQuery = queries.getAllValues().get(1).getQueryObject();
+            Assertions.assertEquals("userId", snapshotQuery.get("userSnapshot.userId"));
+            Assertions.assertEquals(new Document("$not", new Document("$gte", 2L)),
+                    snapshotQuery.get("userSnapshot.version"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests for checkSnapshots method")
+    class TestCheckSnapshotsMethod {
+        @Test
+        @DisplayName("Test should refresh a book updated after the snapshot of a late write was taken")
+        void test_checkSnapshots_willRefreshBookUpdatedSinceSnapshot() throws InterruptedException {
+            // the review was written with the cached version 2 after the refresh of version 3 already ran
+            BookSnapshot lateSnapshot = BookSnapshot.of(book(2L));
+            when(mockMongoTemplate.find(any(Query.class), eq(Book.class))).thenReturn(List.of(book(3L)));
+            when(mockMongoTemplate.updateMulti(any(Query.class), any(Update.class), any(Class.class)))
+                    .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+            snapshotServiceUnderTest.checkSnapshots(List.of(lateSnapshot), List.of());
+            awaitRefreshes();
+
+            ArgumentCaptor<Query> reviewQueries = ArgumentCaptor.forClass(Query.class);
+            verify(mockMongoTemplate).updateMulti(reviewQueries.capture(), any(Update.class), eq(Review.class));
+            Assertions.assertEquals(new Document("$not", new Document("$gte", 3L)),
+                    reviewQueries.getValue().getQueryObject().get("bookSnapshot.version"));
+            verify(mockMongoTemplate, never()).find(any(Query.class), eq(User.class));
+        }
+
+        @Test
+        @DisplayName("Test should leave snapshots of the current version alone")
+        void test_checkSnapshots_willNotRefreshCurrentSnapshots() throws InterruptedException {
+            User user = new User("userId", "userName", "email", "phoneNumber");
+            user.setVersion(4L);
+            when(mockMongoTemplate.find(any(Query.class), eq(Book.class))).thenReturn(List.of(book(2L)));
+            when(mockMongoTemplate.find(any(Query.class), eq(User.class))).thenReturn(List.of(user));
+
+            snapshotServiceUnderTest.checkSnapshots(List.of(BookSnapshot.of(book(2L))),
+                    List.of(UserSnapshot.of(user)));
+            awaitRefreshes();
+
+            verify(mockMongoTemplate, never()).updateMulti(any(Query.class), any(Update.class), any(Class.class));
+        }
+    }
+}
@@ -26,6 +26,8 @@ public class UserServiceTest {
 
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private SnapshotService snapshotService;
     @InjectMocks
     private UserService userService;
     private User testUser;
@@ -50,6 +52,7 @@ public class UserServiceTest {
         assertNotNull(result);
         assertEquals("Raluki123", result.getUserName());
         verify(userRepository, times(1)).save(any(User.class));
+        verify(snapshotService, times(1)).refreshUser(any(User.class));
     }
 
     @Test
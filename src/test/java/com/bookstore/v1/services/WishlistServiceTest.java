@@ -4,6 +4,7 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import com.bookstore.v1.data.*;
+import com.bookstore.v1.dto.FieldSelection;
 import com.bookstore.v1.dto.WishlistCreationDTO;
 import com.bookstore.v1.dto.WishlistDTO;
 import com.bookstore.v1.exception.DuplicateObjectException;
@@ -11,16 +12,24 @@ import com.bookstore.v1.exception.EmptyFieldException;
 import com.bookstore.v1.exception.EntityNotFoundException;
 import com.bookstore.v1.exception.InvalidDoubleRange;
 import com.bookstore.v1.services.WishlistService;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 @SpringBootTest
 public class WishlistServiceTest {
@@ -31,6 +40,14 @@ public class WishlistServiceTest {
     private UserRepository userRepository;
     @Mock
     private BookRepository bookRepository;
+    @Mock
+    private MongoTemplate mongoTemplate;
+    @Mock
+    private SnapshotService snapshotService;
+    @Mock
+    private WriteBehindQueue writeBehindQueue;
+    @Spy
+    private ETagService eTagService = new ETagService();
 
     @InjectMocks
     private WishlistService wishlistService;
@@ -112,6 +129,29 @@ public class WishlistServiceTest {
         verify(wishlistRepository, times(1)).findAll();
     }
 
+    @Test
+    void testGetWishlistsFromSnapshots() {
+        // Arrange
+        Wishlist wishlist = new Wishlist("2", "Snapshot Wishlist");
+        wishlist.setUser(testUser);
+        wishlist.addBook(testBook);
+        wishlist.setUserSnapshot(UserSnapshot.of(testUser));
+        wishlist.setBookSnapshots(List.of(BookSnapshot.of(testBook)));
+        when(snapshotService.isEnabled()).thenReturn(true);
+        when(wishlistRepository.findAll()).thenReturn(Collections.singletonList(wishlist));
+
+        // Act
+        List<WishlistDTO> result = wishlistService.getWishlists();
+
+        // Assert
+        assertEquals(1, result.size());
+        assertEquals(testUser.getUserName(), result.get(0).getUser().getUserName());
+        assertNull(result.get(0).getUser().getEmail());
+        assertEquals(testBook.getTitle(), result.get(0).getBooks().get(0).getTitle());
+        assertNull(result.get(0).getBooks().get(0).getIsbn());
+        verify(bookRepository, never()).findAllById(any());
+    }
+
     @Test
     void testGetUserWishlists() throws EntityNotFoundException {
         // Arrange
@@ -130,14 +170,44 @@ public class WishlistServiceTest {
         verify(wishlistRepository, times(1)).findAllByUser(testUser);
     }
 
+    @Test
+    void testGetTaggedUserWishlists() throws EntityNotFoundException {
+        // Arrange
+        Wishlist updatedWishlist = new Wishlist(testWishlist.getId(), testWishlist.getTitle());
+        updatedWishlist.setUser(testUser);
+        updatedWishlist.setVersion(1L);
+        when(userRepository.findById(testUser.getId())).thenReturn(Optional.of(testUser));
+        when(wishlistRepository.findAllByUser(testUser)).thenReturn(List.of(testWishlist))
+                .thenReturn(List.of(updatedWishlist));
+
+        // Act
+        Tagged<List<WishlistDTO>> first = wishlistService.getTaggedUserWishlists(testUser.getId(),
+                FieldSelection.forWishlists(null));
+        Tagged<List<WishlistDTO>> updated = wishlistService.getTaggedUserWishlists(testUser.getId(),
+                FieldSelection.forWishlists(null));
+
+        // Assert
+        assertEquals(1, first.getBody().size());
+        assertEquals(testWishlist.getId(), first.getBody().get(0).getId());
+        assertNotEquals(first.getETag(), updated.getETag());
+        verify(wishlistRepository, times(2)).findAllByUser(testUser);
+        verifyNoInteractions(mongoTemplate);
+    }
+
     @Test
     void testAddBook() throws EntityNotFoundException, DuplicateObjectException {
         // Arrange
         String newBookId = "2";
         Book newBook = new Book(newBookId, "New Book", "New Author", "New Publisher", "New ISBN", LocalDate.of(1951, 7, 16));
-        when(wishlistRepository.findById(testWishlist.getId())).thenReturn(Optional.of(testWishlist));
+        Wishlist updatedWishlist = new Wishlist(testWishlist.getId(), testWishlist.getTitle());
+        updatedWishlist.setUser(testUser);
+        updatedWishlist.addBook(testBook);
+        updatedWishlist.addBook(newBook);
         when(bookRepository.findById(newBookId)).thenReturn(Optional.of(newBook));
-        when(wishlistRepository.save(any(Wishlist.class))).thenReturn(testWishlist);
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Wishlist.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        when(wishlistRepository.findById(testWishlist.getId())).thenReturn(Optional.of(updatedWishlist));
+        when(bookRepository.findAllById(anyIterable())).thenReturn(Arrays.asList(testBook, newBook));
 
         // Act
         WishlistDTO result = wishlistService.addBook(testWishlist.getId(), newBookId);
@@ -147,8 +217,84 @@ public class WishlistServiceTest {
         assertEquals(2, result.getBooks().size());
         assertEquals(newBook.getId(), result.getBooks().get(1).getId());
         assertEquals(newBook.getTitle(), result.getBooks().get(1).getTitle());
-        verify(wishlistRepository, times(1)).findById(testWishlist.getId());
         verify(bookRepository, times(1)).findById(newBookId);
-        verify(wishlistRepository, times(1)).save(any(Wishlist.class));
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(1)).updateFirst(query.capture(), any(Update.class), eq(Wishlist.class));
+        assertEquals(testWishlist.getId(), query.getValue().getQueryObject().get("id"));
+        assertEquals(new Document("$ne", newBook), query.getValue().getQueryObject().get("books"));
+        verify(bookRepository, times(1)).findAllById(anyIterable());
+        verify(wishlistRepository, never()).save(any(Wishlist.class));
+    }
+
+    @Test
+    void testAddBookAlreadyInWishlist() {
+        // Arrange
+        when(bookRepository.findById(testBook.getId())).thenReturn(Optional.of(testBook));
+        // the book already on the wishlist makes the query match nothing, the wishlist itself exists
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Wishlist.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+        when(mongoTemplate.exists(any(Query.class), eq(Wishlist.class))).thenReturn(true);
+
+        // Act
+        DuplicateObjectException exception = assertThrows(DuplicateObjectException.class,
+                () -> wishlistService.addBook(testWishlist.getId(), testBook.getId()));
+
+        // Assert
+        assertEquals("Object: duplicated book in wishlist already exists", exception.getMessage());
+        verify(wishlistRepository, never()).save(any(Wishlist.class));
+    }
+
+    @Test
+    void testAddBookToMissingWishlist() {
+        // Arrange
+        when(bookRepository.findById(testBook.getId())).thenReturn(Optional.of(testBook));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Wishlist.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+        when(mongoTemplate.exists(any(Query.class), eq(Wishlist.class))).thenReturn(false);
+
+        // Act
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class,
+                () -> wishlistService.addBook(testWishlist.getId(), testBook.getId()));
+
+        // Assert
+        assertEquals("Entity: wishlist was not found", exception.getMessage());
+    }
+
+    @Test
+    void testAddBookWithWriteBehind() throws EntityNotFoundException, DuplicateObjectException {
+        // Arrange
+        String newBookId = "2";
+        Book newBook = new Book(newBookId, "New Book", "New Author", "New Publisher", "New ISBN", LocalDate.of(1951, 7, 16));
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        when(writeBehindQueue.isEnabled()).thenReturn(true);
+        when(writeBehindQueue.enqueue(eq(Wishlist.class), eq(testWishlist.getId()), any(), any())).thenReturn(written);
+        when(bookRepository.findById(newBookId)).thenReturn(Optional.of(newBook));
+        when(wishlistRepository.findById(testWishlist.getId())).thenReturn(Optional.of(testWishlist));
+        when(bookRepository.findAllById(anyIterable())).thenReturn(Arrays.asList(testBook, newBook));
+
+        // Act
+        WishlistDTO result = wishlistService.addBook(testWishlist.getId(), newBookId);
+
+        // Assert
+        assertEquals(2, result.getBooks().size());
+        assertEquals(newBook.getId(), result.getBooks().get(1).getId());
+        verify(writeBehindQueue, times(1)).acknowledge(written);
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(Wishlist.class));
+    }
+
+    @Test
+    void testAddBookAlreadyInWishlistWithWriteBehind() {
+        // Arrange
+        when(writeBehindQueue.isEnabled()).thenReturn(true);
+        when(bookRepository.findById(testBook.getId())).thenReturn(Optional.of(testBook));
+        when(wishlistRepository.findById(testWishlist.getId())).thenReturn(Optional.of(testWishlist));
+
+        // Act
+        DuplicateObjectException exception = assertThrows(DuplicateObjectException.class,
+                () -> wishlistService.addBook(testWishlist.getId(), testBook.getId()));
+
+        // Assert
+        assertEquals("Object: duplicated book in wishlist already exists", exception.getMessage());
+        verify(writeBehindQueue, never()).enqueue(any(), any(), any(), any());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,197 @@
+package com.bookstore.v1.services;
+
+import com.bookstore.v1.data.Review;
+import com.bookstore.v1.data.Wishlist;
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.*;
+import org.mockito.InOrder;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class WriteBehindQueueTest {
+    private MongoTemplate mockMongoTemplate;
+    private BulkOperations mockBulkOperations;
+    private SimpleMeterRegistry meterRegistry;
+    private WriteBehindQueue writeBehindQueueUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        mockMongoTemplate = mock(MongoTemplate.class);
+        mockBulkOperations = mock(BulkOperations.class);
+        when(mockMongoTemplate.bulkOps(eq(BulkOperations.BulkMode.UNORDERED), any(Class.class)))
+                .thenReturn(mockBulkOperations);
+        meterRegistry = new SimpleMeterRegistry();
+        writeBehindQueueUnderTest = new WriteBehindQueue(mockMongoTemplate, meterRegistry);
+        ReflectionTestUtils.setField(writeBehindQueueUnderTest, "ack", "flush");
+        ReflectionTestUtils.setField(writeBehindQueueUnderTest, "capacity", 100);
+        ReflectionTestUtils.setField(writeBehindQueueUnderTest, "batchSize", 10);
+        ReflectionTestUtils.setField(writeBehindQueueUnderTest, "flushInterval", Duration.ofMillis(5));
+        ReflectionTestUtils.setField(writeBehindQueueUnderTest, "enqueueTimeout", Duration.ofMillis(100));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writeBehindQueueUnderTest.shutdown();
+    }
+
+    private WriteBehindQueue.PendingWrite insert(Class<?> entityClass, String document, List<String> written) {
+        return new WriteBehindQueue.PendingWrite(entityClass, document, bulk -> bulk.insert(document),
+                () -> written.add(document));
+    }
+
+    @Nested
+    @DisplayName("Tests for flush method")
+    class TestFlushMethod {
+        @Test
+        @DisplayName("Test should send one bulk write per collection and notify the listeners afterwards")
+        void test_flush_willSendOneBulkWritePerCollection() {
+            List<String> written = new ArrayList<>();
+            List<String> flushed = new ArrayList<>();
+            writeBehindQueueUnderTest.addFlushListener(() -> flushed.addAll(written));
+
+            writeBehindQueueUnderTest.flush(List.of(
+                    insert(Review.class, "review1", written),
+                    insert(Wishlist.class, "wishlist1", written),
+                    insert(Review.class, "review2", written)));
+
+            verify(mockMongoTemplate).bulkOps(BulkOperations.BulkMode.UNORDERED, Review.class);
+            verify(mockMongoTemplate).bulkOps(BulkOperations.BulkMode.UNORDERED, Wishlist.class);
+            verify(mockBulkOperations, times(2)).execute();
+            Assertions.assertEquals(List.of("review1", "review2", "wishlist1"), written);
+            Assertions.assertEquals(written, flushed);
+            Assertions.assertEquals(2L, meterRegistry
+                    .get(WriteBehindQueue.BATCH_SIZE_METER)
+                    .tag("collection", "Review")
+                    .summary()
+                    .totalAmount(), 0.0);
+        }
+
+        @Test
+        @DisplayName("Test should fail only the rejected writes without sending the others again")
+        void test_flush_willFailOnlyTheRejectedWrites() {
+            BulkOperationException rejected = mock(BulkOperationException.class);
+            when(rejected.getErrors()).thenReturn(List.of(
+                    new BulkWriteError(11000, "E11000 duplicate key error", new BsonDocument(), 1),
+                    new BulkWriteError(11000, "E11000 duplicate key error", new BsonDocument(), 3)));
+            when(mockBulkOperations.execute()).thenThrow(rejected);
+            List<String> written = new ArrayList<>();
+            WriteBehindQueue.PendingWrite duplicate = insert(Review.class, "review2", written);
+
+            writeBehindQueueUnderTest.flush(List.of(insert(Review.class, "review1", written), duplicate,
+                    insert(Review.class, "review3", written), insert(Review.class, "review4", written)));
+
+            verify(mockBulkOperations).execute();
+            verify(mockBulkOperations).insert("review3");
+            Assertions.assertEquals(List.of("review1", "review3"), written);
+            CompletionException actualException = Assertions.assertThrows(CompletionException.class,
+                    () -> ((CompletableFuture<?>) ReflectionTestUtils.getField(duplicate, "written")).join());
+            Assertions.assertTrue(actualException.getCause() instanceof DuplicateKeyException);
+        }
+
+        @Test
+        @DisplayName("Test should send a second write to the same document only after the first one")
+        void test_flush_willKeepTheOrderOfWritesToTheSameDocument() {
+            List<String> sent = new ArrayList<>();
+            List<String> written = new ArrayList<>();
+
+            writeBehindQueueUnderTest.flush(List.of(
+                    new WriteBehindQueue.PendingWrite(Review.class, "review1", bulk -> sent.add("insert review1"),
+                            () -> written.add("insert review1")),
+                    new WriteBehindQueue.PendingWrite(Review.class, "review2", bulk -> sent.add("insert review2"),
+                            () -> written.add("insert review2")),
+                    new WriteBehindQueue.PendingWrite(Review.class, "review1", bulk -> sent.add("update review1"),
+                            () -> written.add("update review1"))));
+
+            InOrder inOrder = inOrder(mockMongoTemplate, mockBulkOperations);
+            inOrder.verify(mockMongoTemplate).bulkOps(BulkOperations.BulkMode.UNORDERED, Review.class);
+            inOrder.verify(mockBulkOperations).execute();
+            inOrder.verify(mockMongoTemplate).bulkOps(BulkOperations.BulkMode.UNORDERED, Review.class);
+            inOrder.verify(mockBulkOperations).execute();
+            Assertions.assertEquals(List.of("insert review1", "insert review2", "update review1"), sent);
+            Assertions.assertEquals(sent, written);
+        }
+    }
+
+    @Nested
+    @DisplayName("Tests for enqueue method")
+    class TestEnqueueMethod {
+        @Test
+        @DisplayName("Test should flush queued writes in the background and acknowledge them once written")
+        void test_enqueue_willAcknowledgeWritesOnceFlushed() {
+            ReflectionTestUtils.setField(writeBehindQueueUnderTest, "enabled", true);
+            writeBehindQueueUnderTest.start();
+            List<String> written = new ArrayList<>();
+
+            List<CompletableFuture<Void>> pending = new ArrayList<>();
+            for (String document : List.of("review1", "review2", "review3")) {
+                pending.add(writeBehindQueueUnderTest.enqueue(Review.class, document, bulk -> bulk.insert(document),
+                        () -> written.add(document)));
+            }
+            pending.forEach(writeBehindQueueUnderTest::acknowledge);
+
+            Assertions.assertEquals(List.of("review1", "review2", "review3"), written);
+            Assertions.assertEquals(3L, meterRegistry
+                    .get(WriteBehindQueue.BATCH_SIZE_METER)
+                    .tag("collection", "Review")
+                    .summary()
+                    .totalAmount(), 0.0);
+        }
+
+        @Test
+        @DisplayName("Test should send the write right away when write-behind is disabled")
+        void test_enqueue_willWriteRightAwayWhenDisabled() {
+            List<String> written = new ArrayList<>();
+
+            CompletableFuture<Void> pending = writeBehindQueueUnderTest.enqueue(Review.class, "review1",
+                    bulk -> bulk.insert("review1"), () -> written.add("review1"));
+
+            Assertions.assertTrue(pending.isDone());
+            Assertions.assertEquals(List.of("review1"), written);
+            verify(mockBulkOperations).execute();
+        }
+
+        @Test
+        @DisplayName("Test should run the callbacks off the flusher thread")
+        void test_enqueue_willRunCallbacksOffTheFlusher() {
+            ReflectionTestUtils.setField(writeBehindQueueUnderTest, "enabled", true);
+            writeBehindQueueUnderTest.start();
+            List<String> callbackThreads = new ArrayList<>();
+
+            writeBehindQueueUnderTest.acknowledge(writeBehindQueueUnderTest.enqueue(Review.class, "review1",
+                    bulk -> bulk.insert("review1"), () -> callbackThreads.add(Thread.currentThread().getName())));
+
+            Assertions.assertEquals(List.of("write-behind-callbacks"), callbackThreads);
+        }
+
+        @Test
+        @DisplayName("Test should flush the writes left in the queue once the flusher stopped")
+        void test_shutdown_willFlushRemainingWritesAfterFlusherStopped() throws InterruptedException {
+            ReflectionTestUtils.setField(writeBehindQueueUnderTest, "enabled", true);
+            writeBehindQueueUnderTest.start();
+            List<String> written = new ArrayList<>();
+            CompletableFuture<Void> pending = writeBehindQueueUnderTest.enqueue(Review.class, "review1",
+                    bulk -> bulk.insert("review1"), () -> written.add("review1"));
+
+            writeBehindQueueUnderTest.shutdown();
+
+            Assertions.assertTrue(pending.isDone());
+            Assertions.assertEquals(List.of("review1"), written);
+            Assertions.assertFalse(((Thread) ReflectionTestUtils.getField(writeBehindQueueUnderTest, "flusher"))
+                    .isAlive());
+        }
+    }
+}